@@ -0,0 +1,57 @@
+package de.jakob;
+
+import de.jakob.data.AugmentedSample;
+import de.jakob.data.Augmenter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/** Augmenting one doodle: through {@link Main#augment}, and into a reused slot as the batch loader does. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class AugmentBenchmark {
+
+    /** Bit‑packed or dense source samples */
+    @Param({"true", "false"})
+    public boolean binary;
+
+    private List<Sample> data;
+    private Augmenter augmenter;
+    private AugmentedSample slot;
+    private int next;
+
+    @Setup
+    public void setup() {
+        data = binary ? Synthetic.doodles(64, 5) : Synthetic.denseDoodles(64, 5);
+        augmenter = new Augmenter(Synthetic.SIZE, new SplittableRandom(5));
+        slot = augmenter.newSample();
+    }
+
+    @Benchmark
+    public Sample augment() {
+        next = (next + 1) % data.size();
+        return Main.augment(data.get(next));
+    }
+
+    @Benchmark
+    public Sample augmentPooled() {
+        next = (next + 1) % data.size();
+        return augmenter.augment(data.get(next), slot);
+    }
+}
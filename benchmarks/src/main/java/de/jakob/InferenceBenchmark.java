@@ -0,0 +1,54 @@
+package de.jakob;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Latency of classifying one drawing, as the drawing screen does, and of a 250‑sample cost probe. */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class InferenceBenchmark {
+
+    @Param({"DOUBLE", "FLOAT"})
+    public Precision precision;
+
+    private NeuralNetwork nn;
+    private List<Sample> probe;
+    private double[][] drawings;
+    private int next;
+
+    @Setup
+    public void setup() {
+        nn = Synthetic.network(precision);
+        probe = Synthetic.doodles(250, 3);
+        drawings = new double[64][];
+        for (int i = 0; i < drawings.length; i++) drawings[i] = probe.get(i).inputs();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public int classify() {
+        next = (next + 1) % drawings.length;
+        return nn.classify(drawings[next]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public double totalCost() {
+        return nn.totalCost(probe);
+    }
+}
@@ -0,0 +1,129 @@
+package de.jakob;
+
+import de.jakob.kernel.Kernels;
+import de.jakob.kernel.ScalarKernels;
+import de.jakob.kernel.VectorKernels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ScalarKernels} against {@link VectorKernels} on the first layer's shape (6400 → 256,
+ * batch of 32), kernel by kernel; the speed‑up is the ratio of the two {@code kernels} rows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class KernelsBenchmark {
+
+    private static final int N_IN = 6400, N_OUT = 256, ROWS = 32;
+
+    @Param({"scalar", "vector"})
+    public String kernels;
+
+    @Param({"DOUBLE", "FLOAT"})
+    public Precision precision;
+
+    private Kernels k;
+    private double[] x, w, b, d, z, dx, gW, gB, m, v;
+    private float[] xF, wF, bF, dF, zF, dxF, gWF, gBF, mF, vF;
+
+    @Setup
+    public void setup() {
+        k = kernels.equals("vector") ? new VectorKernels() : new ScalarKernels();
+        Random random = new Random(1);
+        x = fill(random, ROWS * N_IN);
+        w = fill(random, N_OUT * N_IN);
+        b = fill(random, N_OUT);
+        d = fill(random, ROWS * N_OUT);
+        z = new double[ROWS * N_OUT];
+        dx = new double[ROWS * N_IN];
+        gW = new double[N_OUT * N_IN];
+        gB = new double[N_OUT];
+        m = new double[N_OUT * N_IN];
+        v = new double[N_OUT * N_IN];
+        xF = toFloat(x);
+        wF = toFloat(w);
+        bF = toFloat(b);
+        dF = toFloat(d);
+        zF = new float[ROWS * N_OUT];
+        dxF = new float[ROWS * N_IN];
+        gWF = new float[N_OUT * N_IN];
+        gBF = new float[N_OUT];
+        mF = new float[N_OUT * N_IN];
+        vF = new float[N_OUT * N_IN];
+    }
+
+    @Benchmark
+    public Object forward() {
+        if (precision == Precision.FLOAT) {
+            k.forward(xF, ROWS, N_IN, wF, bF, N_OUT, zF);
+            return zF;
+        }
+        k.forward(x, ROWS, N_IN, w, b, N_OUT, z);
+        return z;
+    }
+
+    @Benchmark
+    public Object backward() {
+        if (precision == Precision.FLOAT) {
+            k.backward(dF, ROWS, N_OUT, wF, N_IN, dxF);
+            return dxF;
+        }
+        k.backward(d, ROWS, N_OUT, w, N_IN, dx);
+        return dx;
+    }
+
+    @Benchmark
+    public void accumulate() {
+        if (precision == Precision.FLOAT) {
+            k.accumulate(xF, dF, ROWS, N_IN, N_OUT, gWF, gBF);
+        } else {
+            k.accumulate(x, d, ROWS, N_IN, N_OUT, gW, gB);
+        }
+    }
+
+    @Benchmark
+    public void momentum() {
+        if (precision == Precision.FLOAT) {
+            k.momentum(wF, vF, gWF, wF.length, 0.9f, 1e-9f, false);
+        } else {
+            k.momentum(w, v, gW, w.length, 0.9, 1e-9, false);
+        }
+    }
+
+    @Benchmark
+    public void adam() {
+        if (precision == Precision.FLOAT) {
+            k.adam(wF, mF, vF, gWF, wF.length, 1, 0.9f, 0.999f, 1e-9f, 1e-8f, 0);
+        } else {
+            k.adam(w, m, v, gW, w.length, 1, 0.9, 0.999, 1e-9, 1e-8, 0);
+        }
+    }
+
+    private static double[] fill(Random random, int n) {
+        double[] a = new double[n];
+        for (int i = 0; i < n; i++) a[i] = random.nextGaussian();
+        return a;
+    }
+
+    private static float[] toFloat(double[] a) {
+        float[] f = new float[a.length];
+        for (int i = 0; i < a.length; i++) f[i] = (float) a[i];
+        return f;
+    }
+}
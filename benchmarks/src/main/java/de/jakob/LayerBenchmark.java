@@ -0,0 +1,104 @@
+package de.jakob;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per‑layer steps of a training iteration on one layer of the 6400‑256‑256‑128‑10 network,
+ * through the batched entry points {@link NeuralNetwork} uses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class LayerBenchmark {
+
+    /** nIn x nOut of the layer; the layer after it is taken as nOut x 128 */
+    @Param({"6400x256", "256x256", "256x128", "128x10"})
+    public String shape;
+
+    @Param({"1", "32", "64"})
+    public int rows;
+
+    @Param({"DOUBLE", "FLOAT"})
+    public Precision precision;
+
+    private Layer layer, next;
+    private LayerWorkspace ws;
+    private double[] in, nextVals, nodeVals;
+    private float[] inF, nextValsF, nodeValsF;
+
+    @Setup
+    public void setup() {
+        int nIn  = Integer.parseInt(shape.substring(0, shape.indexOf('x')));
+        int nOut = Integer.parseInt(shape.substring(shape.indexOf('x') + 1));
+        Random random = new Random(1);
+        layer = new Layer(nIn, nOut, random, precision);
+        next  = new Layer(nOut, 128, random, precision);
+        ws = layer.newWorkspace();
+
+        in = fill(random, rows * nIn);
+        nextVals = fill(random, rows * 128);
+        nodeVals = fill(random, rows * nOut);
+        inF = toFloat(in);
+        nextValsF = toFloat(nextVals);
+        nodeValsF = toFloat(nodeVals);
+
+        // leaves the inputs and pre‑activations the backward steps read
+        forward();
+    }
+
+    @Benchmark
+    public Object forward() {
+        return precision == Precision.FLOAT
+                ? layer.calculateOutputs(inF, rows, ws)
+                : layer.calculateOutputs(in, rows, ws);
+    }
+
+    @Benchmark
+    public Object hiddenNodeValues() {
+        return precision == Precision.FLOAT
+                ? layer.calculateHiddenLayerNodeValues(next, nextValsF, ws)
+                : layer.calculateHiddenLayerNodeValues(next, nextVals, ws);
+    }
+
+    @Benchmark
+    public void updateGradients() {
+        if (precision == Precision.FLOAT) {
+            layer.updateGradients(nodeValsF, ws);
+        } else {
+            layer.updateGradients(nodeVals, ws);
+        }
+    }
+
+    @Benchmark
+    public void applyGradients() {
+        layer.applyGradients(1e-9);
+    }
+
+    private static double[] fill(Random random, int n) {
+        double[] a = new double[n];
+        for (int i = 0; i < n; i++) a[i] = random.nextGaussian();
+        return a;
+    }
+
+    private static float[] toFloat(double[] a) {
+        float[] f = new float[a.length];
+        for (int i = 0; i < a.length; i++) f[i] = (float) a[i];
+        return f;
+    }
+}
@@ -0,0 +1,127 @@
+package de.jakob;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/** Reading the dataset CSV and the saved network, from files written once per trial. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class LoadingBenchmark {
+
+    /** Lines in the CSV */
+    @Param({"1000"})
+    public int samples;
+
+    private Path dir, csv, json, checkpoint;
+    private NeuralNetwork nn;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("nn-bench");
+        csv = dir.resolve("doodles.csv");
+        json = dir.resolve("network.json");
+        checkpoint = dir.resolve("network.nnck");
+
+        writeCsv(csv, samples);
+        nn = Synthetic.network(Precision.DOUBLE);
+        writeJson(json, nn);
+        nn.save(checkpoint);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        }
+    }
+
+    @Benchmark
+    public List<Sample> csv() throws IOException {
+        return Main.readCsv(csv);
+    }
+
+    @Benchmark
+    public NeuralNetwork json() throws IOException {
+        nn.load(json);
+        return nn;
+    }
+
+    @Benchmark
+    public NeuralNetwork checkpoint() throws IOException {
+        nn.load(checkpoint);
+        return nn;
+    }
+
+    /** Same layout as DoodleCsvGenerator: the one‑hot label, then the pixels as floats */
+    private static void writeCsv(Path file, int samples) throws IOException {
+        Random random = new Random(4);
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int n = 0; n < samples; n++) {
+                int label = random.nextInt(Synthetic.CLASSES);
+                StringBuilder sb = new StringBuilder();
+                for (int c = 0; c < Synthetic.CLASSES; c++) sb.append(c == label ? 1 : 0).append(",");
+                double[] pixels = Synthetic.doodle(random);
+                for (int i = 0; i < pixels.length; i++) {
+                    sb.append((float) pixels[i]);
+                    if (i < pixels.length - 1) sb.append(",");
+                }
+                writer.write(sb.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    /** The JSON format networks were saved in before checkpoints */
+    @SuppressWarnings("unchecked")
+    private static void writeJson(Path file, NeuralNetwork nn) throws IOException {
+        JSONObject root = new JSONObject();
+        Layer[] layers = nn.getLayers();
+        for (int l = 0; l < layers.length; l++) {
+            JSONObject layer = new JSONObject();
+            layer.put("nIn", (long) layers[l].getnIn());
+            layer.put("nOut", (long) layers[l].getnOut());
+            JSONArray weights = new JSONArray();
+            for (double[] row : layers[l].copyWeights()) {
+                JSONArray r = new JSONArray();
+                for (double w : row) r.add(w);
+                weights.add(r);
+            }
+            JSONArray biases = new JSONArray();
+            for (double b : layers[l].copyBiases()) biases.add(b);
+            layer.put("weights", weights);
+            layer.put("biases", biases);
+            root.put("layer_" + l, layer);
+        }
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            root.writeJSONString(writer);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package de.jakob;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded stand‑ins for the real data: 80×80 doodles drawn as a few random strokes, about as
+ * much ink as the clamped doodles, and the 6400‑256‑256‑128‑10 network they are trained on.
+ */
+final class Synthetic {
+
+    static final int SIZE = 80;
+    static final int CLASSES = 10;
+    static final int[] NODES = {SIZE * SIZE, 256, 256, 128, CLASSES};
+
+    private Synthetic() {}
+
+    static NeuralNetwork network(Precision precision) {
+        return new NeuralNetwork(precision, new Random(1), NODES);
+    }
+
+    /** Pixels of one doodle, 0 or 1 */
+    static double[] doodle(Random random) {
+        double[] pixels = new double[SIZE * SIZE];
+        int strokes = 3 + random.nextInt(4);
+        for (int s = 0; s < strokes; s++) {
+            double x = random.nextInt(SIZE), y = random.nextInt(SIZE);
+            double angle = random.nextDouble() * 2 * Math.PI;
+            for (int step = 0; step < 60; step++) {
+                angle += random.nextGaussian() * 0.3;
+                x = Math.max(0, Math.min(SIZE - 1, x + Math.cos(angle)));
+                y = Math.max(0, Math.min(SIZE - 1, y + Math.sin(angle)));
+                pixels[(int) y * SIZE + (int) x] = 1;
+            }
+        }
+        return pixels;
+    }
+
+    /** n bit‑packed doodles with random labels, as the CSV loader produces them */
+    static List<Sample> doodles(int n, long seed) {
+        Random random = new Random(seed);
+        List<Sample> samples = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            samples.add(BitDataPoint.pack(doodle(random), OneHot.of(random.nextInt(CLASSES), CLASSES)));
+        }
+        return samples;
+    }
+
+    /** The same doodles unpacked to doubles, for the dense paths */
+    static List<Sample> denseDoodles(int n, long seed) {
+        List<Sample> samples = new ArrayList<>(n);
+        for (Sample s : doodles(n, seed)) {
+            samples.add(new DataPoint(s.inputs(), s.expectedOutputs()));
+        }
+        return samples;
+    }
+}
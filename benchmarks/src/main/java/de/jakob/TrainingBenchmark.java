@@ -0,0 +1,58 @@
+package de.jakob;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** One {@link NeuralNetwork#learn} step on the full network, batch by batch through a fixed set of doodles. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class TrainingBenchmark {
+
+    @Param({"8", "32", "128"})
+    public int batchSize;
+
+    /** Worker threads, 0 for one per core */
+    @Param({"1", "0"})
+    public int threads;
+
+    @Param({"DOUBLE", "FLOAT"})
+    public Precision precision;
+
+    /** Bit‑packed doodles take the sparse first layer, dense ones the matrix product */
+    @Param({"true", "false"})
+    public boolean sparse;
+
+    private NeuralNetwork nn;
+    private List<Sample> data;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        nn = Synthetic.network(precision);
+        nn.setThreads(threads == 0 ? Runtime.getRuntime().availableProcessors() : threads);
+        data = sparse ? Synthetic.doodles(1024, 2) : Synthetic.denseDoodles(1024, 2);
+    }
+
+    @Benchmark
+    public void learn() {
+        if (cursor + batchSize > data.size()) cursor = 0;
+        nn.learn(data.subList(cursor, cursor + batchSize), 1e-4);
+        cursor += batchSize;
+    }
+}
@@ -0,0 +1,12 @@
+package de.jakob;
+
+/** What a layer applies to its pre‑activations z. */
+public enum Activation {
+    /** max(0, z); every hidden layer, and the output layer of the original network */
+    RELU,
+    /**
+     * Softmax over each row, for the output layer. Trained against the categorical cross‑entropy,
+     * whose gradient with respect to z is exactly a − y.
+     */
+    SOFTMAX
+}
@@ -0,0 +1,72 @@
+package de.jakob;
+
+/**
+ * A binary image packed one bit per pixel plus its label: 800 bytes for an 80×80 doodle
+ * instead of 51 KB as a {@link DataPoint}. The first layer reads the set bits directly.
+ */
+public record BitDataPoint(
+        long[] bits,
+        int length,
+        int label,
+        int classes
+) implements Sample {
+
+    /** Packs a sample whose inputs are all 0 or 1; returns null if any input is not */
+    public static BitDataPoint pack(double[] inputs, double[] expectedOutputs) {
+        long[] bits = new long[(inputs.length + 63) >>> 6];
+        for (int i = 0; i < inputs.length; i++) {
+            double v = inputs[i];
+            if (v == 1.0) bits[i >>> 6] |= 1L << i;
+            else if (v != 0.0) return null;
+        }
+        int label = 0;
+        for (int c = 1; c < expectedOutputs.length; c++) {
+            if (expectedOutputs[c] > expectedOutputs[label]) label = c;
+        }
+        return new BitDataPoint(bits, inputs.length, label, expectedOutputs.length);
+    }
+
+    @Override
+    public double[] inputs() {
+        double[] in = new double[length];
+        copyInputs(in, 0);
+        return in;
+    }
+
+    @Override
+    public double[] expectedOutputs() {
+        return OneHot.of(label, classes);
+    }
+
+    @Override
+    public void copyInputs(double[] dst, int offset) {
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = bits[i >>> 6] >>> i & 1L;
+        }
+    }
+
+    @Override
+    public void copyInputs(float[] dst, int offset) {
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = bits[i >>> 6] >>> i & 1L;
+        }
+    }
+
+    @Override
+    public boolean isBinary() {
+        return true;
+    }
+
+    @Override
+    public int activeInputs(int[] dst, int offset) {
+        int n = offset;
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                dst[n++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return n - offset;
+    }
+}
@@ -0,0 +1,225 @@
+package de.jakob;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * The parameters of a network and the state of its optimizer in the binary checkpoint format.
+ * Both are copied out of the layers when the checkpoint is taken, so it can be written while
+ * training goes on.
+ * <p>
+ * Layout, little‑endian:
+ * <pre>
+ *  0  int    magic "NNCK"
+ *  4  int    version (3)
+ *  8  int    dtype (0 = double, 1 = float)
+ * 12  int    layer count L
+ * 16  long   CRC32C of everything after the header
+ * 24  int    output activation (0 = ReLU, 1 = softmax)
+ * 28  int    optimizer kind (see {@link Optimizer.Kind})
+ * 32  long   optimizer steps taken
+ * 40  double momentum or β1, β2, epsilon, weight decay
+ * 72  int    L + 1 node counts, input layer first, then padding to a multiple of 8
+ * then for every layer its weights [nOut][nIn] row‑major, its nOut biases, and the optimizer
+ * state in the same shapes: the velocity of weights and biases, then for Adam their second moments
+ * </pre>
+ * Version 1 files have only the node counts, at 24, and a ReLU output; version 2 files add the
+ * activation and have their node counts at 28. Neither carries optimizer state.
+ */
+public final class Checkpoint {
+
+    static final int MAGIC = 0x4B434E4E; // "NNCK" read little‑endian
+    static final int VERSION = 3;
+
+    /** What {@link #read} found: the layers, and the optimizer with its step count, null for older files */
+    public record Loaded(Layer[] layers, Optimizer optimizer, long steps) {}
+
+    private final Precision precision;
+    private final Activation output;
+    private final Optimizer optimizer;
+    private final long steps;
+    private final int[] nodes;
+    private final ByteBuffer[] blocks; // one per layer, weights, biases, then optimizer state
+
+    private Checkpoint(Precision precision, Activation output, Optimizer optimizer, long steps,
+                       int[] nodes, ByteBuffer[] blocks) {
+        this.precision = precision;
+        this.output = output;
+        this.optimizer = optimizer;
+        this.steps  = steps;
+        this.nodes  = nodes;
+        this.blocks = blocks;
+    }
+
+    /** Copies the current parameters and optimizer state of nn */
+    public static Checkpoint of(NeuralNetwork nn) {
+        Layer[] layers = nn.getLayers();
+        Optimizer optimizer = nn.getOptimizer();
+        int[] nodes = new int[layers.length + 1];
+        ByteBuffer[] blocks = new ByteBuffer[layers.length];
+        nodes[0] = layers[0].getnIn();
+        for (int l = 0; l < layers.length; l++) {
+            nodes[l + 1] = layers[l].getnOut();
+            blocks[l] = ByteBuffer.allocate(Math.toIntExact(blockSize(layers[l].getnIn(), layers[l].getnOut(),
+                    nn.getPrecision(), 1 + optimizer.stateArrays()))).order(ByteOrder.LITTLE_ENDIAN);
+            layers[l].writeParameters(blocks[l]);
+            layers[l].writeOptimizerState(blocks[l], optimizer.stateArrays());
+            blocks[l].flip();
+        }
+        return new Checkpoint(nn.getPrecision(), layers[layers.length - 1].getActivation(), optimizer,
+                nn.getOptimizerSteps(), nodes, blocks);
+    }
+
+    /**
+     * Writes to a temporary file next to {@code file} and renames it over {@code file},
+     * so a reader never sees a half‑written checkpoint
+     */
+    public void write(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        for (ByteBuffer block : blocks) crc.update(block.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(headerSize(VERSION, nodes.length - 1)).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC)
+              .putInt(VERSION)
+              .putInt(precision.ordinal())
+              .putInt(nodes.length - 1)
+              .putLong(crc.getValue())
+              .putInt(output.ordinal())
+              .putInt(optimizer.kind().ordinal())
+              .putLong(steps)
+              .putDouble(optimizer.momentum())
+              .putDouble(optimizer.beta2())
+              .putDouble(optimizer.epsilon())
+              .putDouble(optimizer.weightDecay());
+        for (int n : nodes) header.putInt(n);
+        header.clear();
+
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining()) channel.write(header);
+                for (ByteBuffer block : blocks) {
+                    ByteBuffer b = block.duplicate();
+                    while (b.hasRemaining()) channel.write(b);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Maps the checkpoint and builds its layers and their optimizer state in the given precision,
+     * converting if the file was written in the other one
+     */
+    public static Loaded read(Path file, Precision precision) throws IOException {
+        MappedByteBuffer map;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("Checkpoint too large: " + file);
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        map.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (map.limit() < 32 || map.getInt(0) != MAGIC) {
+            throw new IOException("Not a network checkpoint: " + file);
+        }
+        int version = map.getInt(4);
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported checkpoint version " + version);
+        }
+        Precision stored = ordinal(Precision.values(), map.getInt(8), file);
+        int count = map.getInt(12);
+        long checksum = map.getLong(16);
+        if (version >= 3 && map.limit() < nodesAt(version)) {
+            throw corrupt(file);
+        }
+        Activation output = version == 1 ? Activation.RELU : ordinal(Activation.values(), map.getInt(24), file);
+        Optimizer optimizer = null;
+        long steps = 0;
+        if (version >= 3) {
+            optimizer = new Optimizer(ordinal(Optimizer.Kind.values(), map.getInt(28), file),
+                    map.getDouble(40), map.getDouble(48), map.getDouble(56), map.getDouble(64));
+            steps = map.getLong(32);
+            if (steps < 0) throw corrupt(file);
+        }
+        int stateArrays = optimizer == null ? 0 : optimizer.stateArrays();
+        // the node counts have to fit in the file before they can be read
+        if (count < 1 || count > (map.limit() - nodesAt(version)) / 4 - 1) {
+            throw corrupt(file);
+        }
+        int offset = headerSize(version, count);
+
+        int[] nodes = new int[count + 1];
+        long expectedSize = offset;
+        for (int l = 0; l <= count; l++) {
+            nodes[l] = map.getInt(nodesAt(version) + 4 * l);
+            if (nodes[l] < 1) throw corrupt(file);
+        }
+        for (int l = 0; l < count && expectedSize <= map.limit(); l++) {
+            expectedSize += blockSize(nodes[l], nodes[l + 1], stored, 1 + stateArrays);
+        }
+        if (map.limit() != expectedSize) {
+            throw new IOException("Corrupt checkpoint " + file + ": it is " + map.limit()
+                    + " bytes, its header describes " + expectedSize);
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(map.slice(offset, map.limit() - offset));
+        if (crc.getValue() != checksum) {
+            throw new IOException("Checkpoint checksum mismatch: " + file);
+        }
+
+        Layer[] layers = new Layer[count];
+        map.position(offset);
+        for (int l = 0; l < count; l++) {
+            layers[l] = new Layer(nodes[l], nodes[l + 1], precision);
+            layers[l].readParameters(map, stored);
+            if (stateArrays > 0) layers[l].readOptimizerState(map, stored, stateArrays);
+        }
+        layers[count - 1].setActivation(output);
+        return new Loaded(layers, optimizer, steps);
+    }
+
+    /** values[ordinal], or an IOException if the file holds no such constant */
+    private static <E extends Enum<E>> E ordinal(E[] values, int ordinal, Path file) throws IOException {
+        if (ordinal < 0 || ordinal >= values.length) throw corrupt(file);
+        return values[ordinal];
+    }
+
+    private static IOException corrupt(Path file) {
+        return new IOException("Corrupt checkpoint: " + file);
+    }
+
+    private static int nodesAt(int version) {
+        return switch (version) {
+            case 1 -> 24;
+            case 2 -> 28;
+            default -> 72;
+        };
+    }
+
+    private static int headerSize(int version, int layers) {
+        return (nodesAt(version) + 4 * (layers + 1) + 7) & ~7;
+    }
+
+    /** Bytes of one layer holding arrays copies of its parameters: the parameters themselves, then optimizer state */
+    private static long blockSize(int nIn, int nOut, Precision precision, int arrays) {
+        return arrays * ((long) nOut * nIn + nOut) * (precision == Precision.FLOAT ? Float.BYTES : Double.BYTES);
+    }
+}
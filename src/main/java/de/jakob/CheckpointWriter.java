@@ -0,0 +1,138 @@
+package de.jakob;
+
+import de.jakob.metrics.Phase;
+import de.jakob.metrics.TrainingMetrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes checkpoints on a background thread. {@link #save} only copies the weights; if several
+ * saves arrive while the disk is busy, only the newest of them is written. A failed write is
+ * logged and counted, and {@link #flush} reports it if it was the newest.
+ */
+public class CheckpointWriter implements Closeable {
+
+    private static final TrainingMetrics METRICS = TrainingMetrics.get();
+
+    private final Path file;
+    private final ExecutorService writer;
+    private final AtomicReference<Checkpoint> pending = new AtomicReference<>();
+
+    // metrics, readable from any thread
+    private volatile long lastSnapshotNanos, lastWriteNanos, maxWriteNanos;
+    private final AtomicLong saves = new AtomicLong(), writes = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong(), failures = new AtomicLong();
+    // why the newest write failed, null once a later one succeeds
+    private volatile Exception lastFailure;
+
+    public CheckpointWriter(Path file) {
+        this.file = file;
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "checkpoint-writer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Snapshots nn on the calling thread and queues the snapshot for writing */
+    public void save(NeuralNetwork nn) {
+        long start = System.nanoTime();
+        Checkpoint checkpoint = Checkpoint.of(nn);
+        lastSnapshotNanos = System.nanoTime() - start;
+        METRICS.record(Phase.CHECKPOINT_SNAPSHOT, lastSnapshotNanos);
+        saves.incrementAndGet();
+
+        // a snapshot still waiting is replaced; the task already queued for it writes this one instead
+        if (pending.getAndSet(checkpoint) != null) {
+            coalesced.incrementAndGet();
+        } else {
+            writer.execute(this::writePending);
+        }
+    }
+
+    private void writePending() {
+        Checkpoint checkpoint = pending.getAndSet(null);
+        if (checkpoint == null) return;
+        long start = System.nanoTime();
+        try {
+            checkpoint.write(file);
+            writes.incrementAndGet();
+            lastFailure = null;
+        } catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            lastFailure = e;
+            System.out.println("Failed to write checkpoint: " + e);
+            e.printStackTrace();
+        }
+        lastWriteNanos = System.nanoTime() - start;
+        METRICS.record(Phase.CHECKPOINT_WRITE, lastWriteNanos);
+        maxWriteNanos = Math.max(maxWriteNanos, lastWriteNanos);
+    }
+
+    /**
+     * Waits until every checkpoint saved so far is on disk
+     *
+     * @throws IOException if the newest checkpoint could not be written, with the write's exception as the cause
+     */
+    public void flush() throws IOException {
+        try {
+            writer.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+        Exception failure = lastFailure;
+        if (failure != null) {
+            throw new IOException("Latest checkpoint was not written to " + file, failure);
+        }
+    }
+
+    /** Writes what is still queued, then stops the writer thread */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public double getLastSnapshotMillis() {
+        return lastSnapshotNanos / 1e6;
+    }
+
+    public double getLastWriteMillis() {
+        return lastWriteNanos / 1e6;
+    }
+
+    public double getMaxWriteMillis() {
+        return maxWriteNanos / 1e6;
+    }
+
+    public long getSaves() {
+        return saves.get();
+    }
+
+    public long getWrites() {
+        return writes.get();
+    }
+
+    /** Saves that were superseded by a newer one before they reached the disk */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+}
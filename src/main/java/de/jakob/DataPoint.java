@@ -3,4 +3,4 @@ package de.jakob;
 public record DataPoint(
         double[] inputs,
         double[] expectedOutputs
-){}
+) implements Sample {}
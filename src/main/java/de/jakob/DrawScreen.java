@@ -4,8 +4,12 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class DrawScreen extends JFrame {
     private static final int PIXEL_SIZE = 10;
@@ -13,28 +17,60 @@ public class DrawScreen extends JFrame {
     private static final int SCREEN_SIZE = PIXEL_SIZE * GRID_SIZE;
 
     private final BufferedImage canvas;
+    private final byte[] pixels; // the canvas' gray bytes, row by row, read and written directly
     private final DrawPanel panel;
     private final JPanel predictionPanel;
     private final NeuralNetwork nn;
     private final JLabel[] predictionLabels;
 
-    private final String[] categories = {
+    // predictions run on their own thread; pixels changed while it is busy go into its next run
+    private final ExecutorService predictor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "prediction");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Object pendingLock = new Object();
+    private final double[] pendingValues = new double[GRID_SIZE * GRID_SIZE]; // guarded by pendingLock
+    private final BitSet pendingPixels = new BitSet(GRID_SIZE * GRID_SIZE);  // guarded by pendingLock
+    private boolean predicting;                                              // guarded by pendingLock
+
+    // owned by the predictor thread
+    private IncrementalInference inference;
+    private final double[] image = new double[GRID_SIZE * GRID_SIZE];
+    private final int[] changed = new int[GRID_SIZE * GRID_SIZE];
+
+    // the classes of the original dataset, which was generated without a labels file
+    private static final String[] DEFAULT_CATEGORIES = {
             "airplane", "alarm clock", "bear", "axe", "bridge",
             "windmill", "telephone", "house", "butterfly", "tree"
     };
+    private final String[] categories;
+
+    /** The dataset's labels if there is one per network output, otherwise the original classes */
+    private static String[] categories(List<String> labels, NeuralNetwork nn) {
+        Layer[] layers = nn.getLayers();
+        int outputs = layers[layers.length - 1].getnOut();
+        if (labels == null) return DEFAULT_CATEGORIES;
+        if (labels.size() != outputs) {
+            System.out.println("The dataset has " + labels.size() + " labels but the network " + outputs
+                    + " outputs; showing the default categories");
+            return DEFAULT_CATEGORIES;
+        }
+        return labels.toArray(new String[0]);
+    }
 
     public DrawScreen(NeuralNetwork nn) {
         this.nn = nn;
+        this.categories = categories(Main.datasetLabels(), nn);
+        nn.published(); // the first snapshot is taken here, before training starts
 
         setTitle("Neural Network Drawing");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout(10, 10));
 
+        // a fresh TYPE_BYTE_GRAY image is one byte per pixel with no padding, and starts out black
         canvas = new BufferedImage(GRID_SIZE, GRID_SIZE, BufferedImage.TYPE_BYTE_GRAY);
-        Graphics2D cg = canvas.createGraphics();
-        cg.setColor(Color.BLACK);
-        cg.fillRect(0, 0, GRID_SIZE, GRID_SIZE);
-        cg.dispose();
+        pixels = ((DataBufferByte) canvas.getRaster().getDataBuffer()).getData();
 
         panel = new DrawPanel();
         panel.setPreferredSize(new Dimension(SCREEN_SIZE, SCREEN_SIZE));
@@ -86,7 +122,7 @@ public class DrawScreen extends JFrame {
         setLocationRelativeTo(null);
         setVisible(true);
 
-        updatePredictionLabels(); // Initialize with blank canvas
+        canvasReplaced(new double[GRID_SIZE * GRID_SIZE]); // Initialize with blank canvas
     }
 
     private JButton createStyledButton(String text) {
@@ -102,27 +138,21 @@ public class DrawScreen extends JFrame {
     }
 
     private void clearCanvas() {
-        Graphics2D g = canvas.createGraphics();
-        g.setColor(Color.BLACK);
-        g.fillRect(0, 0, GRID_SIZE, GRID_SIZE);
-        g.dispose();
+        Arrays.fill(pixels, (byte) 0);
         panel.repaint();
-        updatePredictionLabels();
+        canvasReplaced(new double[GRID_SIZE * GRID_SIZE]);
     }
 
-    private void showRandom(NeuralNetwork nn, List<DataPoint> list) {
+    private void showRandom(NeuralNetwork nn, List<? extends Sample> list) {
         int randomIndex = (int) (Math.random() * list.size());
-        DataPoint dp = list.get(randomIndex);
+        Sample dp = list.get(randomIndex);
         displayImage(dp.inputs());
     }
 
     public double[] getDrawingData() {
-        double[] data = new double[GRID_SIZE * GRID_SIZE];
-        for (int y = 0; y < GRID_SIZE; y++) {
-            for (int x = 0; x < GRID_SIZE; x++) {
-                int gray = canvas.getRGB(x, y) & 0xFF;
-                data[y * GRID_SIZE + x] = gray / 255.0;
-            }
+        double[] data = new double[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            data[i] = (pixels[i] & 0xFF) / 255.0;
         }
         return data;
     }
@@ -131,19 +161,72 @@ public class DrawScreen extends JFrame {
         if (data.length != GRID_SIZE * GRID_SIZE) {
             throw new IllegalArgumentException("Data array must be of length " + GRID_SIZE * GRID_SIZE);
         }
-        for (int y = 0; y < GRID_SIZE; y++) {
-            for (int x = 0; x < GRID_SIZE; x++) {
-                int gray = (int) (Math.max(0, Math.min(255, data[y * GRID_SIZE + x] * 255)));
-                canvas.setRGB(x, y, new Color(gray, gray, gray).getRGB());
-            }
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = (byte) Math.max(0, Math.min(255, data[i] * 255));
         }
         panel.repaint();
-        updatePredictionLabels();
+        canvasReplaced(data);
     }
 
-    private void updatePredictionLabels() {
-        double[] data = getDrawingData();
-        double[] outputs = nn.calculate(data);
+    /** Queues a prediction for a changed pixel, merging with changes not yet predicted */
+    private void pixelChanged(int index, double value) {
+        synchronized (pendingLock) {
+            pendingValues[index] = value;
+            pendingPixels.set(index);
+            schedulePrediction();
+        }
+    }
+
+    private void canvasReplaced(double[] data) {
+        synchronized (pendingLock) {
+            System.arraycopy(data, 0, pendingValues, 0, pendingValues.length);
+            pendingPixels.set(0, pendingValues.length);
+            schedulePrediction();
+        }
+    }
+
+    private void schedulePrediction() {
+        if (!predicting) {
+            predicting = true;
+            predictor.execute(this::predict);
+        }
+    }
+
+    /** Runs on the predictor thread until no changes are left */
+    private void predict() {
+        while (true) {
+            int count = 0;
+            synchronized (pendingLock) {
+                if (pendingPixels.isEmpty()) {
+                    predicting = false;
+                    return;
+                }
+                for (int i = pendingPixels.nextSetBit(0); i >= 0; i = pendingPixels.nextSetBit(i + 1)) {
+                    changed[count++] = i;
+                    image[i] = pendingValues[i];
+                }
+                pendingPixels.clear();
+            }
+
+            // the published snapshot, never the weights training is updating right now
+            NeuralNetwork model = nn.published();
+            if (inference == null) {
+                inference = new IncrementalInference(model);
+            } else {
+                inference.setModel(model);
+            }
+            if (count > image.length / 8) {
+                inference.setAll(image);
+            } else {
+                for (int c = 0; c < count; c++) inference.set(changed[c], image[changed[c]]);
+            }
+
+            double[] outputs = inference.outputs(new double[categories.length]);
+            SwingUtilities.invokeLater(() -> showPredictions(outputs));
+        }
+    }
+
+    private void showPredictions(double[] outputs) {
 
         Integer[] indices = new Integer[categories.length];
         for (int i = 0; i < indices.length; i++) indices[i] = i;
@@ -169,7 +252,6 @@ public class DrawScreen extends JFrame {
                 @Override public void mouseDragged(MouseEvent e) {
                     if (drawing) {
                         drawAt(e.getX(), e.getY());
-                        updatePredictionLabels(); // Recalculate on each stroke
                     }
                 }
             });
@@ -179,20 +261,21 @@ public class DrawScreen extends JFrame {
             int gx = x / PIXEL_SIZE;
             int gy = y / PIXEL_SIZE;
             if (gx >= 0 && gx < GRID_SIZE && gy >= 0 && gy < GRID_SIZE) {
-                canvas.setRGB(gx, gy, Color.WHITE.getRGB());
+                int index = gy * GRID_SIZE + gx;
+                if (pixels[index] == (byte) 255) return;
+                pixels[index] = (byte) 255;
+                // only the changed cell is repainted; Swing merges the cells of one drag
                 repaint(gx * PIXEL_SIZE, gy * PIXEL_SIZE, PIXEL_SIZE, PIXEL_SIZE);
+                pixelChanged(index, 1.0);
             }
         }
 
         @Override protected void paintComponent(Graphics g) {
             super.paintComponent(g);
-            for (int y = 0; y < GRID_SIZE; y++) {
-                for (int x = 0; x < GRID_SIZE; x++) {
-                    int gray = canvas.getRGB(x, y) & 0xFF;
-                    g.setColor(new Color(gray, gray, gray));
-                    g.fillRect(x * PIXEL_SIZE, y * PIXEL_SIZE, PIXEL_SIZE, PIXEL_SIZE);
-                }
-            }
+            // one scaled blit; the clip limits it to the dirty region
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            g2.drawImage(canvas, 0, 0, SCREEN_SIZE, SCREEN_SIZE, null);
         }
     }
 }
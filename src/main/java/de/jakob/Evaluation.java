@@ -0,0 +1,89 @@
+package de.jakob;
+
+/**
+ * What one pass of {@link NeuralNetwork#evaluate} measured: average cost, accuracy, top‑k
+ * accuracy and the confusion matrix, rows being the true class and columns the predicted one.
+ */
+public class Evaluation {
+    private final int classes, k;
+    private final long[][] confusion;
+    private long samples, topK;
+    private double costSum;
+
+    Evaluation(int classes, int k) {
+        this.classes = classes;
+        this.k = k;
+        this.confusion = new long[classes][classes];
+    }
+
+    /** Records one sample whose outputs are out[off .. off + classes) */
+    void add(int label, double[] out, int off, double cost) {
+        int predicted = 0, above = 0;
+        for (int j = 0; j < classes; j++) {
+            if (out[off + j] > out[off + predicted]) predicted = j;
+            if (out[off + j] > out[off + label]) above++;
+        }
+        confusion[label][predicted]++;
+        if (above < k) topK++;
+        costSum += cost;
+        samples++;
+    }
+
+    /** Adds the counts of another part of the same evaluation */
+    void merge(Evaluation other) {
+        for (int a = 0; a < classes; a++) {
+            for (int p = 0; p < classes; p++) confusion[a][p] += other.confusion[a][p];
+        }
+        topK    += other.topK;
+        costSum += other.costSum;
+        samples += other.samples;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    /** Average cost per sample */
+    public double getCost() {
+        return samples == 0 ? 0 : costSum / samples;
+    }
+
+    public long getCorrect() {
+        long c = 0;
+        for (int j = 0; j < classes; j++) c += confusion[j][j];
+        return c;
+    }
+
+    public double getAccuracy() {
+        return samples == 0 ? 0 : (double) getCorrect() / samples;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    /** Share of samples whose class is among the k highest outputs */
+    public double getTopKAccuracy() {
+        return samples == 0 ? 0 : (double) topK / samples;
+    }
+
+    /** Share of the samples of class c that were classified as c */
+    public double getRecall(int c) {
+        long total = 0;
+        for (int p = 0; p < classes; p++) total += confusion[c][p];
+        return total == 0 ? 0 : (double) confusion[c][c] / total;
+    }
+
+    /** Copy of the confusion matrix, [true class][predicted class] */
+    public long[][] getConfusion() {
+        long[][] copy = new long[classes][];
+        for (int a = 0; a < classes; a++) copy[a] = confusion[a].clone();
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("cost %.5f, accuracy %.2f%%, top-%d %.2f%% over %d samples",
+                getCost(), 100 * getAccuracy(), k, 100 * getTopKAccuracy(), samples);
+    }
+}
@@ -0,0 +1,27 @@
+package de.jakob;
+
+/** A {@link Sample} that keeps its inputs as floats, half the size of a {@link DataPoint}. */
+public record FloatDataPoint(
+        float[] floatInputs,
+        double[] expectedOutputs
+) implements Sample {
+
+    @Override
+    public double[] inputs() {
+        double[] in = new double[floatInputs.length];
+        for (int i = 0; i < in.length; i++) in[i] = floatInputs[i];
+        return in;
+    }
+
+    @Override
+    public void copyInputs(double[] dst, int offset) {
+        for (int i = 0; i < floatInputs.length; i++) {
+            dst[offset + i] = floatInputs[i];
+        }
+    }
+
+    @Override
+    public void copyInputs(float[] dst, int offset) {
+        System.arraycopy(floatInputs, 0, dst, offset, floatInputs.length);
+    }
+}
@@ -0,0 +1,69 @@
+package de.jakob;
+
+/**
+ * Inference for an input that changes a few values at a time, like a drawing. The first layer's
+ * pre‑activations are kept: when input i changes by Δ they move by Δ·W[:, i], so a changed pixel
+ * costs one weight column instead of the whole 6400‑input product. Only the small layers after
+ * the first are recomputed. Not thread safe; meant for a single inference thread.
+ */
+public class IncrementalInference {
+
+    private final double[] input;
+    private NeuralNetwork model;
+    private Layer[] layers;
+    private LayerWorkspace[] workspaces;
+    private double[] z;
+
+    /** Starts with an all‑zero input */
+    public IncrementalInference(NeuralNetwork model) {
+        this.input = new double[model.getLayers()[0].getnIn()];
+        setModel(model);
+    }
+
+    /** Switches to another model with the same input size, recomputing the cache for the current input */
+    public void setModel(NeuralNetwork model) {
+        if (model == this.model) return;
+        this.model = model;
+        this.layers = model.getLayers();
+        z = new double[layers[0].getnOut()];
+        workspaces = new LayerWorkspace[layers.length];
+        for (int l = 0; l < layers.length; l++) {
+            workspaces[l] = layers[l].inferenceWorkspace();
+        }
+        layers[0].preActivations(input, z);
+    }
+
+    public NeuralNetwork getModel() {
+        return model;
+    }
+
+    /** Sets input i to value */
+    public void set(int i, double value) {
+        double delta = value - input[i];
+        if (delta == 0) return;
+        input[i] = value;
+        layers[0].addInputColumn(i, delta, z);
+    }
+
+    /** Replaces the whole input; recomputes the first layer outright */
+    public void setAll(double[] values) {
+        System.arraycopy(values, 0, input, 0, input.length);
+        layers[0].preActivations(input, z);
+    }
+
+    /** The network's outputs for the current input, written into out */
+    public double[] outputs(double[] out) {
+        // the first layer's own activation, so a single softmax layer works too
+        layers[0].activate(z, workspaces[0]);
+        if (model.getPrecision() == Precision.FLOAT) {
+            float[] a = workspaces[0].activationsF;
+            for (int l = 1; l < layers.length; l++) a = layers[l].calculateOutputs(a, 1, workspaces[l]);
+            for (int j = 0; j < out.length; j++) out[j] = a[j];
+        } else {
+            double[] a = workspaces[0].activations;
+            for (int l = 1; l < layers.length; l++) a = layers[l].calculateOutputs(a, 1, workspaces[l]);
+            System.arraycopy(a, 0, out, 0, out.length);
+        }
+        return out;
+    }
+}
@@ -1,130 +1,583 @@
 package de.jakob;
 
+import de.jakob.kernel.Kernels;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
+import java.nio.ByteBuffer;
 import java.util.Random;
 import java.util.Arrays;
 
 public class Layer {
     private final int nIn, nOut;
-    private final double[][] weights, gradW, velocityW;
+    private final Precision precision;
+
+    // row‑major [nOut][nIn]: weight j←i lives at j * nIn + i
+    // only the set matching the precision is allocated, the other stays null
+    private final double[] weights, gradW, velocityW;
     private final double[] biases,  gradB, velocityB;
+    private final float[] weightsF, gradWF, velocityWF;
+    private final float[] biasesF,  gradBF, velocityBF;
+
+    // once‑per‑layer buffers, used by the single‑threaded API
+    private final LayerWorkspace local;
+
+    // Adam's second moments; velocity* doubles as its first. Allocated on the first Adam step
+    private double[] secondW, secondB;
+    private float[] secondWF, secondBF;
 
-    // once‑per‑layer buffers
-    private final double[] inputs, zs, activations, nodeValsBuffer;
+    // ReLU unless this is a softmax output layer
+    private Activation activation = Activation.RELU;
 
-    private static final double MOMENTUM = 0.9;
     private static final Random RANDOM   = new Random();
+    private static final Kernels KERNELS = Kernels.get();
 
     public Layer(int nIn, int nOut) {
+        this(nIn, nOut, RANDOM);
+    }
+
+    /** Layer whose initial weights are drawn from the given generator */
+    public Layer(int nIn, int nOut, Random random) {
+        this(nIn, nOut, random, Precision.DOUBLE);
+    }
+
+    public Layer(int nIn, int nOut, Random random, Precision precision) {
+        this(nIn, nOut, precision);
+        initRandomWeights(random);
+    }
+
+    /** Layer with all parameters zero, to be filled from a checkpoint */
+    Layer(int nIn, int nOut, Precision precision) {
         this.nIn  = nIn;
         this.nOut = nOut;
+        this.precision = precision;
 
-        weights    = new double[nOut][nIn];
-        gradW      = new double[nOut][nIn];
-        velocityW  = new double[nOut][nIn];
+        boolean f = precision == Precision.FLOAT;
 
+        weights    = f ? null : new double[nOut * nIn];
+        gradW      = f ? null : new double[nOut * nIn];
+        velocityW  = f ? null : new double[nOut * nIn];
+        weightsF   = f ? new float[nOut * nIn] : null;
+        gradWF     = f ? new float[nOut * nIn] : null;
+        velocityWF = f ? new float[nOut * nIn] : null;
 
-        biases     = new double[nOut];
-        gradB      = new double[nOut];
-        velocityB  = new double[nOut];
 
-        inputs         = new double[nIn];
-        zs             = new double[nOut];
-        activations    = new double[nOut];
-        nodeValsBuffer = new double[nOut];
+        biases     = f ? null : new double[nOut];
+        gradB      = f ? null : new double[nOut];
+        velocityB  = f ? null : new double[nOut];
+        biasesF    = f ? new float[nOut] : null;
+        gradBF     = f ? new float[nOut] : null;
+        velocityBF = f ? new float[nOut] : null;
 
-        initRandomWeights();
+        local = sharedWorkspace();
     }
 
-    /** Forward pass: z = W·in + b, then ReLU(z) */
+    /** Copy of the weights and biases only: it can run forward passes but cannot be trained */
+    private Layer(Layer source) {
+        this.nIn  = source.nIn;
+        this.nOut = source.nOut;
+        this.precision = source.precision;
+
+        weights  = source.weights  == null ? null : source.weights.clone();
+        biases   = source.biases   == null ? null : source.biases.clone();
+        weightsF = source.weightsF == null ? null : source.weightsF.clone();
+        biasesF  = source.biasesF  == null ? null : source.biasesF.clone();
+        gradW = velocityW = gradB = velocityB = null;
+        gradWF = velocityWF = gradBF = velocityBF = null;
+        activation = source.activation;
+
+        local = sharedWorkspace();
+    }
+
+    /** A copy of the current parameters that later updates to this layer do not reach */
+    Layer snapshot() {
+        return new Layer(this);
+    }
+
+    /** Buffers for another thread; its gradients are merged with {@link #reduceGradients} */
+    LayerWorkspace newWorkspace() {
+        return new LayerWorkspace(nIn, nOut, precision);
+    }
+
+    /** Buffers that accumulate straight into this layer's gradients */
+    LayerWorkspace sharedWorkspace() {
+        return new LayerWorkspace(nOut, precision, gradW, gradB, gradWF, gradBF);
+    }
+
+    /** Buffers for forward passes only, without gradient accumulators */
+    LayerWorkspace inferenceWorkspace() {
+        return new LayerWorkspace(nIn, nOut, precision, false);
+    }
+
+    /** Forward pass: z = W·in + b, then ReLU(z), or softmax(z) for a softmax output layer */
     public double[] calculateOutputs(double[] in) {
-        System.arraycopy(in, 0, inputs, 0, nIn);
+        if (precision == Precision.FLOAT) {
+            return toDouble(calculateOutputs(toFloat(in), 1, local), nOut);
+        }
+        return calculateOutputs(in, 1, local);
+    }
 
-        // 1) compute all z’s
-        for (int j = 0; j < nOut; j++) {
-            double z = biases[j];
-            for (int i = 0; i < nIn; i++) {
-                z += weights[j][i] * in[i];
+    /**
+     * Batched forward pass: {@code in} holds {@code rows} inputs back to back and the result
+     * holds {@code rows} activation vectors. {@code in} is kept by reference for the backward pass.
+     */
+    double[] calculateOutputs(double[] in, int rows, LayerWorkspace ws) {
+        ws.ensureCapacity(rows);
+        ws.rows = rows;
+        ws.inputs = in;
+        ws.activeIdx = null;
+
+        // 1) compute all z’s with one matrix product
+        KERNELS.forward(in, rows, nIn, weights, biases, nOut, ws.zs);
+
+        // 2) vectorized ReLU, or the row‑wise softmax
+        activate(ws);
+        return ws.activations;
+    }
+
+    /** Single‑precision {@link #calculateOutputs(double[], int, LayerWorkspace)} */
+    float[] calculateOutputs(float[] in, int rows, LayerWorkspace ws) {
+        ws.ensureCapacity(rows);
+        ws.rows = rows;
+        ws.inputsF = in;
+        ws.activeIdx = null;
+
+        KERNELS.forward(in, rows, nIn, weightsF, biasesF, nOut, ws.zsF);
+
+        activate(ws);
+        return ws.activationsF;
+    }
+
+    /**
+     * Forward pass for a batch of sparse inputs in CSR form: row r is non‑zero exactly at
+     * idx[start[r] .. start[r+1]), with the values in val (null when they are all 1).
+     * Only the weight columns of non‑zero inputs are read.
+     * The result is in {@code ws.activations}.
+     */
+    void calculateSparseOutputs(int[] start, int[] idx, double[] val, int rows, LayerWorkspace ws) {
+        ws.ensureCapacity(rows);
+        ws.rows = rows;
+        ws.activeStart = start;
+        ws.activeIdx = idx;
+        ws.activeVal = val;
+
+        KERNELS.forwardSparse(start, idx, val, rows, nIn, weights, biases, nOut, ws.zs);
+        activate(ws);
+    }
+
+    /** Single‑precision {@link #calculateSparseOutputs(int[], int[], double[], int, LayerWorkspace)} */
+    void calculateSparseOutputs(int[] start, int[] idx, float[] val, int rows, LayerWorkspace ws) {
+        ws.ensureCapacity(rows);
+        ws.rows = rows;
+        ws.activeStart = start;
+        ws.activeIdx = idx;
+        ws.activeValF = val;
+
+        KERNELS.forwardSparse(start, idx, val, rows, nIn, weightsF, biasesF, nOut, ws.zsF);
+        activate(ws);
+    }
+
+    /** Pre‑activations b + W·in of a single input row into z, skipping zero inputs */
+    void preActivations(double[] in, double[] z) {
+        if (precision == Precision.FLOAT) {
+            for (int j = 0; j < nOut; j++) {
+                int row = j * nIn;
+                double sum = biasesF[j];
+                for (int i = 0; i < nIn; i++) {
+                    if (in[i] != 0) sum += in[i] * weightsF[row + i];
+                }
+                z[j] = sum;
+            }
+        } else {
+            for (int j = 0; j < nOut; j++) {
+                int row = j * nIn;
+                double sum = biases[j];
+                for (int i = 0; i < nIn; i++) {
+                    if (in[i] != 0) sum += in[i] * weights[row + i];
+                }
+                z[j] = sum;
             }
-            zs[j] = z;
         }
+    }
+
+    /** z += delta · W[:, i], how the pre‑activations move when input i changes by delta */
+    void addInputColumn(int i, double delta, double[] z) {
+        if (precision == Precision.FLOAT) {
+            for (int j = 0, k = i; j < nOut; j++, k += nIn) z[j] += delta * weightsF[k];
+        } else {
+            for (int j = 0, k = i; j < nOut; j++, k += nIn) z[j] += delta * weights[k];
+        }
+    }
+
+    /**
+     * Applies the layer's activation to one row of pre‑activations computed outside it, like those
+     * of {@link #preActivations}. The outputs are in {@code ws.activations}, or {@code ws.activationsF}
+     * for a FLOAT layer, ready for the next layer.
+     */
+    void activate(double[] z, LayerWorkspace ws) {
+        ws.ensureCapacity(1);
+        ws.rows = 1;
+        if (precision == Precision.FLOAT) {
+            for (int j = 0; j < nOut; j++) ws.zsF[j] = (float) z[j];
+        } else {
+            System.arraycopy(z, 0, ws.zs, 0, nOut);
+        }
+        activate(ws);
+    }
+
+    /** The layer's activation over the rows × nOut pre‑activations */
+    private void activate(LayerWorkspace ws) {
+        if (activation == Activation.SOFTMAX) {
+            softmax(ws);
+            return;
+        }
+        int n = ws.rows * nOut;
+        if (precision == Precision.FLOAT) {
+            float[] zs = ws.zsF, activations = ws.activationsF;
+            for (int k = 0; k < n; k++) {
+                activations[k] = zs[k] > 0 ? zs[k] : 0f;
+            }
+        } else {
+            double[] zs = ws.zs, activations = ws.activations;
+            for (int k = 0; k < n; k++) {
+                activations[k] = relu(zs[k]);
+            }
+        }
+    }
+
+    /**
+     * Softmax of every row, shifted by the row maximum so no exp overflows. The log‑sum‑exp it
+     * needs anyway is kept per row, so {@link #crossEntropy} costs no further exp or log.
+     */
+    private void softmax(LayerWorkspace ws) {
+        boolean f = precision == Precision.FLOAT;
+        for (int r = 0, off = 0; r < ws.rows; r++, off += nOut) {
+            double max = f ? ws.zsF[off] : ws.zs[off];
+            for (int j = 1; j < nOut; j++) max = Math.max(max, f ? ws.zsF[off + j] : ws.zs[off + j]);
+
+            double sum = 0;
+            if (f) {
+                for (int j = 0; j < nOut; j++) {
+                    double e = Math.exp(ws.zsF[off + j] - max);
+                    ws.activationsF[off + j] = (float) e;
+                    sum += e;
+                }
+                float inv = (float) (1 / sum);
+                for (int j = 0; j < nOut; j++) ws.activationsF[off + j] *= inv;
+            } else {
+                for (int j = 0; j < nOut; j++) {
+                    double e = Math.exp(ws.zs[off + j] - max);
+                    ws.activations[off + j] = e;
+                    sum += e;
+                }
+                double inv = 1 / sum;
+                for (int j = 0; j < nOut; j++) ws.activations[off + j] *= inv;
+            }
+            ws.logSumExp[r] = max + Math.log(sum);
+        }
+    }
 
-        // 2) vectorized ReLU
+    /**
+     * −Σ y·log softmax(z) for row r of the last forward pass through this softmax layer,
+     * computed as Σ y·(logSumExp − z): exact even where a probability underflows to 0
+     */
+    double crossEntropy(LayerWorkspace ws, int r, double[] y, int yOff) {
+        double lse = ws.logSumExp[r], sum = 0;
+        int off = r * nOut;
         for (int j = 0; j < nOut; j++) {
-            activations[j] = relu(zs[j]);
+            double yj = y[yOff + j];
+            if (yj != 0) sum += yj * (lse - (precision == Precision.FLOAT ? ws.zsF[off + j] : ws.zs[off + j]));
         }
-        return activations;
+        return sum;
     }
 
-    /** dC/dz for output layer under cross‑entropy = (a - y) */
+    /** dC/dz for output layer under cross‑entropy = (a - y); exact for softmax outputs */
     public double[] calculateOutputLayerNodeValues(double[] expected) {
-        for (int j = 0; j < nOut; j++) {
-            nodeValsBuffer[j] = activations[j] - expected[j];
+        if (precision == Precision.FLOAT) {
+            return toDouble(calculateOutputLayerNodeValues(toFloat(expected), local), nOut);
         }
-        return nodeValsBuffer;
+        return calculateOutputLayerNodeValues(expected, local);
+    }
+
+    double[] calculateOutputLayerNodeValues(double[] expected, LayerWorkspace ws) {
+        for (int k = 0, n = ws.rows * nOut; k < n; k++) {
+            ws.nodeVals[k] = ws.activations[k] - expected[k];
+        }
+        return ws.nodeVals;
+    }
+
+    float[] calculateOutputLayerNodeValues(float[] expected, LayerWorkspace ws) {
+        for (int k = 0, n = ws.rows * nOut; k < n; k++) {
+            ws.nodeValsF[k] = ws.activationsF[k] - expected[k];
+        }
+        return ws.nodeValsF;
     }
 
     /** back‑prop into a hidden layer using ReLU′(z) */
     public double[] calculateHiddenLayerNodeValues(Layer next, double[] nextVals) {
-        for (int j = 0; j < nOut; j++) {
-            double sum = 0.0;
-            for (int k = 0; k < next.nOut; k++) {
-                sum += nextVals[k] * next.weights[k][j];
-            }
-            // ReLU′(z) = 1 if z>0, else 0
-            nodeValsBuffer[j] = sum * (zs[j] > 0 ? 1.0 : 0.0);
+        if (precision == Precision.FLOAT) {
+            return toDouble(calculateHiddenLayerNodeValues(next, toFloat(nextVals), local), nOut);
+        }
+        return calculateHiddenLayerNodeValues(next, nextVals, local);
+    }
+
+    double[] calculateHiddenLayerNodeValues(Layer next, double[] nextVals, LayerWorkspace ws) {
+        double[] sum = ws.nodeVals;
+        KERNELS.backward(nextVals, ws.rows, next.nOut, next.weights, nOut, sum);
+
+        // ReLU′(z) = 1 if z>0, else 0
+        for (int k = 0, n = ws.rows * nOut; k < n; k++) {
+            if (ws.zs[k] <= 0) sum[k] = 0.0;
+        }
+        return sum;
+    }
+
+    float[] calculateHiddenLayerNodeValues(Layer next, float[] nextVals, LayerWorkspace ws) {
+        float[] sum = ws.nodeValsF;
+        KERNELS.backward(nextVals, ws.rows, next.nOut, next.weightsF, nOut, sum);
+
+        for (int k = 0, n = ws.rows * nOut; k < n; k++) {
+            if (ws.zsF[k] <= 0) sum[k] = 0f;
         }
-        return nodeValsBuffer;
+        return sum;
     }
 
     /** Accumulate into gradW, gradB (unchanged) */
     public void updateGradients(double[] nodeVals) {
-        for (int j = 0; j < nOut; j++) {
-            gradB[j] += nodeVals[j];
-            for (int i = 0; i < nIn; i++) {
-                gradW[j][i] += inputs[i] * nodeVals[j];
+        if (precision == Precision.FLOAT) {
+            updateGradients(toFloat(nodeVals), local);
+        } else {
+            updateGradients(nodeVals, local);
+        }
+    }
+
+    void updateGradients(double[] nodeVals, LayerWorkspace ws) {
+        if (ws.activeIdx != null) {
+            KERNELS.accumulateSparse(ws.activeStart, ws.activeIdx, ws.activeVal, nodeVals, ws.rows, nIn, nOut, ws.gradW, ws.gradB);
+        } else {
+            KERNELS.accumulate(ws.inputs, nodeVals, ws.rows, nIn, nOut, ws.gradW, ws.gradB);
+        }
+    }
+
+    void updateGradients(float[] nodeVals, LayerWorkspace ws) {
+        if (ws.activeIdx != null) {
+            KERNELS.accumulateSparse(ws.activeStart, ws.activeIdx, ws.activeValF, nodeVals, ws.rows, nIn, nOut, ws.gradWF, ws.gradBF);
+        } else {
+            KERNELS.accumulate(ws.inputsF, nodeVals, ws.rows, nIn, nOut, ws.gradWF, ws.gradBF);
+        }
+    }
+
+    /**
+     * Adds the worker gradients onto this layer's gradients, rows [from, to) only.
+     * Workers are summed in array order so the result does not depend on scheduling.
+     */
+    void reduceGradients(LayerWorkspace[] workers, int from, int to) {
+        int start = from * nIn, end = to * nIn;
+        for (LayerWorkspace ws : workers) {
+            if (precision == Precision.FLOAT) {
+                if (ws.gradWF == gradWF) continue;
+                for (int j = from; j < to; j++) {
+                    gradBF[j] += ws.gradBF[j];
+                    ws.gradBF[j] = 0f;
+                }
+                float[] src = ws.gradWF;
+                for (int k = start; k < end; k++) {
+                    gradWF[k] += src[k];
+                }
+                Arrays.fill(src, start, end, 0f);
+                continue;
+            }
+            if (ws.gradW == gradW) continue;
+            for (int j = from; j < to; j++) {
+                gradB[j] += ws.gradB[j];
+                ws.gradB[j] = 0.0;
             }
+            double[] src = ws.gradW;
+            for (int k = start; k < end; k++) {
+                gradW[k] += src[k];
+            }
+            Arrays.fill(src, start, end, 0.0);
         }
     }
 
     /** Apply (and zero) gradients with momentum (unchanged) */
     public void applyGradients(double lr) {
-        for (int j = 0; j < nOut; j++) {
-            velocityB[j] = MOMENTUM * velocityB[j] + lr * gradB[j];
-            biases[j] -= velocityB[j];
+        applyGradients(Optimizer.DEFAULT, lr, 1, 1);
+    }
 
-            for (int i = 0; i < nIn; i++) {
-                velocityW[j][i] = MOMENTUM * velocityW[j][i] + lr * gradW[j][i];
-                weights[j][i] -= velocityW[j][i];
+    /**
+     * One optimizer step on the gradients, which are multiplied by scale first (1 / batch size for
+     * summed gradients), then zeroed by the same sweep. step counts from 1, Adam's bias correction uses it.
+     */
+    void applyGradients(Optimizer optimizer, double lr, double scale, long step) {
+        boolean f = precision == Precision.FLOAT;
+        if (!optimizer.isAdaptive()) {
+            double mu = optimizer.momentum(), rate = lr * scale;
+            boolean nesterov = optimizer.kind() == Optimizer.Kind.NESTEROV;
+            if (f) {
+                KERNELS.momentum(biasesF, velocityBF, gradBF, nOut, (float) mu, (float) rate, nesterov);
+                KERNELS.momentum(weightsF, velocityWF, gradWF, weightsF.length, (float) mu, (float) rate, nesterov);
+            } else {
+                KERNELS.momentum(biases, velocityB, gradB, nOut, mu, rate, nesterov);
+                KERNELS.momentum(weights, velocityW, gradW, weights.length, mu, rate, nesterov);
             }
+            return;
+        }
+
+        if (f ? secondWF == null : secondW == null) allocateSecondMoments();
+        double beta1 = optimizer.momentum(), beta2 = optimizer.beta2(), eps = optimizer.epsilon();
+        double stepSize = lr * Math.sqrt(1 - Math.pow(beta2, step)) / (1 - Math.pow(beta1, step));
+        // decoupled: only the weights decay, and by the plain learning rate
+        double decay = optimizer.kind() == Optimizer.Kind.ADAMW ? lr * optimizer.weightDecay() : 0;
+        if (f) {
+            KERNELS.adam(biasesF, velocityBF, secondBF, gradBF, nOut, (float) scale,
+                    (float) beta1, (float) beta2, (float) stepSize, (float) eps, 0f);
+            KERNELS.adam(weightsF, velocityWF, secondWF, gradWF, weightsF.length, (float) scale,
+                    (float) beta1, (float) beta2, (float) stepSize, (float) eps, (float) decay);
+        } else {
+            KERNELS.adam(biases, velocityB, secondB, gradB, nOut, scale, beta1, beta2, stepSize, eps, 0);
+            KERNELS.adam(weights, velocityW, secondW, gradW, weights.length, scale, beta1, beta2, stepSize, eps, decay);
         }
     }
 
+    private void allocateSecondMoments() {
+        if (precision == Precision.FLOAT) {
+            secondWF = new float[nOut * nIn];
+            secondBF = new float[nOut];
+        } else {
+            secondW = new double[nOut * nIn];
+            secondB = new double[nOut];
+        }
+    }
+
+    /** Forgets the velocity and second moments, as when switching to an optimizer with other state */
+    void resetOptimizerState() {
+        if (precision == Precision.FLOAT) {
+            Arrays.fill(velocityWF, 0f);
+            Arrays.fill(velocityBF, 0f);
+        } else {
+            Arrays.fill(velocityW, 0.0);
+            Arrays.fill(velocityB, 0.0);
+        }
+        secondW = secondB = null;
+        secondWF = secondBF = null;
+    }
+
     /** Zero‑out gradients (unchanged) */
     public void clearGradients() {
-        Arrays.fill(gradB, 0.0);
-        for (int j = 0; j < nOut; j++) {
-            Arrays.fill(gradW[j], 0.0);
+        if (precision == Precision.FLOAT) {
+            Arrays.fill(gradBF, 0f);
+            Arrays.fill(gradWF, 0f);
+        } else {
+            Arrays.fill(gradB, 0.0);
+            Arrays.fill(gradW, 0.0);
         }
-
     }
 
-    private void initRandomWeights() {
+    private void initRandomWeights(Random random) {
         double scale = Math.sqrt(2.0 / nIn);
-        for (int j = 0; j < nOut; j++) {
-            for (int i = 0; i < nIn; i++) {
-                weights[j][i] = RANDOM.nextGaussian() * scale;
-            }
+        for (int k = 0; k < nOut * nIn; k++) {
+            setWeight(k, random.nextGaussian() * scale);
         }
 
     }
 
+    private void setWeight(int k, double value) {
+        if (precision == Precision.FLOAT) weightsF[k] = (float) value;
+        else weights[k] = value;
+    }
+
+    /** Sets the weight from input i to node j, rounded to float in a FLOAT layer */
+    public void setWeight(int j, int i, double value) {
+        setWeight(j * nIn + i, value);
+    }
+
+    /** Sets the bias of node j, rounded to float in a FLOAT layer */
+    public void setBias(int j, double value) {
+        if (precision == Precision.FLOAT) biasesF[j] = (float) value;
+        else biases[j] = value;
+    }
+
     private static double relu(double x) {
         return x > 0 ? x : 0;
     }
 
+    private static float[] toFloat(double[] a) {
+        float[] f = new float[a.length];
+        for (int i = 0; i < a.length; i++) f[i] = (float) a[i];
+        return f;
+    }
+
+    private static double[] toDouble(float[] a, int n) {
+        double[] d = new double[n];
+        for (int i = 0; i < n; i++) d[i] = a[i];
+        return d;
+    }
+
+
+    /** Puts the weights, then the biases, into dst in this layer's precision */
+    void writeParameters(ByteBuffer dst) {
+        put(dst, weights, weightsF, nOut * nIn);
+        put(dst, biases, biasesF, nOut);
+    }
+
+    /** Reads what {@link #writeParameters} wrote, stored in the given precision */
+    void readParameters(ByteBuffer src, Precision stored) {
+        get(src, stored, weights, weightsF, nOut * nIn);
+        get(src, stored, biases, biasesF, nOut);
+    }
+
+    /**
+     * Puts the optimizer state after the parameters: velocity of the weights and biases, then for
+     * Adam (arrays = 2) their second moments, zeros where none was allocated yet
+     */
+    void writeOptimizerState(ByteBuffer dst, int arrays) {
+        put(dst, velocityW, velocityWF, nOut * nIn);
+        put(dst, velocityB, velocityBF, nOut);
+        if (arrays < 2) return;
+        put(dst, secondW, secondWF, nOut * nIn);
+        put(dst, secondB, secondBF, nOut);
+    }
+
+    /** Reads what {@link #writeOptimizerState} wrote, stored in the given precision */
+    void readOptimizerState(ByteBuffer src, Precision stored, int arrays) {
+        get(src, stored, velocityW, velocityWF, nOut * nIn);
+        get(src, stored, velocityB, velocityBF, nOut);
+        if (arrays < 2) return;
+        allocateSecondMoments();
+        get(src, stored, secondW, secondWF, nOut * nIn);
+        get(src, stored, secondB, secondBF, nOut);
+    }
+
+    /**
+     * Puts whichever of d and f this layer's precision uses into dst; a snapshot has no optimizer
+     * state, its n values are left as the zeros of the freshly allocated buffer
+     */
+    private void put(ByteBuffer dst, double[] d, float[] f, int n) {
+        if (precision == Precision.FLOAT) {
+            if (f != null) dst.asFloatBuffer().put(f);
+            dst.position(dst.position() + n * Float.BYTES);
+        } else {
+            if (d != null) dst.asDoubleBuffer().put(d);
+            dst.position(dst.position() + n * Double.BYTES);
+        }
+    }
+
+    /** Reads n values stored in the given precision into whichever of d and f this layer uses */
+    private void get(ByteBuffer src, Precision stored, double[] d, float[] f, int n) {
+        if (stored == precision) {
+            if (precision == Precision.FLOAT) {
+                src.asFloatBuffer().get(f);
+            } else {
+                src.asDoubleBuffer().get(d);
+            }
+        } else if (stored == Precision.FLOAT) {
+            for (int k = 0; k < n; k++) d[k] = src.getFloat(src.position() + k * Float.BYTES);
+        } else {
+            for (int k = 0; k < n; k++) f[k] = (float) src.getDouble(src.position() + k * Double.BYTES);
+        }
+        src.position(src.position() + n * (stored == Precision.FLOAT ? Float.BYTES : Double.BYTES));
+    }
 
     /** JSON loader adapted for flattened storage */
     public void loadFromJson(JSONObject layerObj) {
@@ -132,13 +585,13 @@ public class Layer {
         for (int j = 0; j < nOut; j++) {
             JSONArray row = (JSONArray) weightsArray.get(j);
             for (int i = 0; i < nIn; i++) {
-                weights[j][i] = ((Number) row.get(i)).doubleValue();
+                setWeight(j * nIn + i, ((Number) row.get(i)).doubleValue());
             }
         }
 
         JSONArray biasesArray = (JSONArray) layerObj.get("biases");
         for (int j = 0; j < nOut; j++) {
-            biases[j] = ((Number) biasesArray.get(j)).doubleValue();
+            setBias(j, ((Number) biasesArray.get(j)).doubleValue());
         }
     }
 
@@ -151,11 +604,60 @@ public class Layer {
         return nOut;
     }
 
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    public Activation getActivation() {
+        return activation;
+    }
+
+    /** Only an output layer may be {@link Activation#SOFTMAX}: the backward pass assumes ReLU everywhere else */
+    void setActivation(Activation activation) {
+        this.activation = activation;
+    }
+
+    /*
+     * The accessors below return copies in either precision, so code that reads them behaves the
+     * same with -Dprecision=float; writing to a copy does not change the layer, use setWeight and
+     * setBias for that.
+     */
+
+    /** Copy of the weights as [nOut][nIn] */
+    public double[][] copyWeights() {
+        double[] flat = copyWeightData();
+        double[][] rows = new double[nOut][];
+        for (int j = 0; j < nOut; j++) {
+            rows[j] = Arrays.copyOfRange(flat, j * nIn, (j + 1) * nIn);
+        }
+        return rows;
+    }
+
+    /** Copy of the row‑major weights, weight j←i at {@code j * getnIn() + i} */
+    public double[] copyWeightData() {
+        return precision == Precision.FLOAT ? toDouble(weightsF, weightsF.length) : weights.clone();
+    }
+
+    /** Copy of the biases */
+    public double[] copyBiases() {
+        return precision == Precision.FLOAT ? toDouble(biasesF, nOut) : biases.clone();
+    }
+
+    /**
+     * Copy of the weights as [nOut][nIn], as {@link #copyWeights}.
+     * @deprecated kept for existing callers; writes no longer reach the layer, use {@link #setWeight}
+     */
+    @Deprecated
     public double[][] getWeights() {
-        return weights;
+        return copyWeights();
     }
 
+    /**
+     * Copy of the biases, as {@link #copyBiases}.
+     * @deprecated kept for existing callers; writes no longer reach the layer, use {@link #setBias}
+     */
+    @Deprecated
     public double[] getBiases() {
-        return biases;
+        return copyBiases();
     }
 }
@@ -0,0 +1,69 @@
+package de.jakob;
+
+/**
+ * Scratch buffers one thread needs to run a layer forward and backward.
+ * Activations are stored as rows × n matrices so a whole batch goes through at once.
+ * Only the arrays of the layer's {@link Precision} are allocated.
+ */
+class LayerWorkspace {
+    private final int nOut;
+    private final Precision precision;
+
+    int rows;                              // rows of the batch currently held
+    double[] inputs;                       // rows × nIn, the matrix the last forward pass read
+    double[] zs, activations, nodeVals;    // rows × nOut
+    double[] logSumExp;                    // per row, log Σ exp(z) of a softmax layer
+    final double[] gradW, gradB;
+
+    int[] activeStart, activeIdx;          // set instead of inputs when the batch was sparse (CSR)
+    double[] activeVal;                    // CSR values, null for binary inputs
+
+    float[] inputsF, activeValF;
+    float[] zsF, activationsF, nodeValsF;
+    final float[] gradWF, gradBF;
+
+    /** Workspace with its own gradient accumulators */
+    LayerWorkspace(int nIn, int nOut, Precision precision) {
+        this(nIn, nOut, precision, true);
+    }
+
+    /** Workspace with its own gradient accumulators, or none for inference only */
+    LayerWorkspace(int nIn, int nOut, Precision precision, boolean withGradients) {
+        this(nOut, precision,
+                withGradients && precision == Precision.DOUBLE ? new double[nOut * nIn] : null,
+                withGradients && precision == Precision.DOUBLE ? new double[nOut] : null,
+                withGradients && precision == Precision.FLOAT ? new float[nOut * nIn] : null,
+                withGradients && precision == Precision.FLOAT ? new float[nOut] : null);
+    }
+
+    /** Workspace that accumulates into the given (possibly shared) gradient arrays */
+    LayerWorkspace(int nOut, Precision precision, double[] gradW, double[] gradB, float[] gradWF, float[] gradBF) {
+        this.nOut      = nOut;
+        this.precision = precision;
+        this.gradW  = gradW;
+        this.gradB  = gradB;
+        this.gradWF = gradWF;
+        this.gradBF = gradBF;
+        allocate(1);
+    }
+
+    void ensureCapacity(int rows) {
+        int have = precision == Precision.FLOAT ? zsF.length : zs.length;
+        if (have < rows * nOut) {
+            allocate(rows);
+        }
+    }
+
+    private void allocate(int rows) {
+        logSumExp = new double[rows];
+        if (precision == Precision.FLOAT) {
+            zsF          = new float[rows * nOut];
+            activationsF = new float[rows * nOut];
+            nodeValsF    = new float[rows * nOut];
+        } else {
+            zs          = new double[rows * nOut];
+            activations = new double[rows * nOut];
+            nodeVals    = new double[rows * nOut];
+        }
+    }
+}
@@ -1,50 +1,109 @@
 package de.jakob;
 
+import de.jakob.data.Augmenter;
+import de.jakob.data.BatchLoader;
+import de.jakob.data.BinaryDataset;
+import de.jakob.data.Dataset;
+import de.jakob.data.Sampler;
+import de.jakob.metrics.TrainingMetrics;
 import de.jakob.legacy.Plotter;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.SQLOutput;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.SplittableRandom;
 
 public class Main {
 
-    public static List<DataPoint> dataPoints;
-    public static List<DataPoint> validationDataPoints;
+    public static Dataset.View dataPoints;
+    public static Dataset.View validationDataPoints;
 
     public static final int size = 80;
 
+    // -Dprecision=float stores the network and the dataset in 32‑bit floats
+    public static final Precision precision = Precision.valueOf(System.getProperty("precision", "double").toUpperCase());
+
+    // -Doutput=relu|softmax switches the output layer, softmax pairing it with a matching cross‑entropy; without it
+    // a loaded network keeps its own, and a new or JSON one uses ReLU as the original network did
+    private static final String outputName = System.getProperty("output");
+
+    // -Doptimizer=sgd|nesterov|adam|adamw switches the update rule (see Optimizer); without it a loaded checkpoint
+    // keeps the one it was saved with, and a new network uses SGD
+    private static final String optimizerName = System.getProperty("optimizer");
+    // -DlearningRate=... : the initial rate, by default 0.001 for Adam/AdamW and 0.05 otherwise
+    private static final String learningRate = System.getProperty("learningRate");
+
+    // -Ddataset=... picks the data file; a .bin file (see CsvToBinaryConverter) is memory‑mapped instead of parsed
+    private static final String datasetPath = System.getProperty("dataset",
+            "D:\\Jakob\\Programming\\Java\\NeuralNetwork\\src\\main\\resources\\doodles_" + size + "px.csv");
+
+    // -DtrainSamples=... : how many samples train, the rest validate; -DsplitSeed=... picks which
+    private static final int TRAIN_SAMPLES = Integer.getInteger("trainSamples", 16000);
+    private static final long SPLIT_SEED = Long.getLong("splitSeed", 1);
+
+    // -DpublishInterval=... : training steps between the weight snapshots the drawing screen predicts with
+    private static final int PUBLISH_INTERVAL = Integer.getInteger("publishInterval", 50);
+
+    // -Dcheckpoint=... is where the network is saved to and loaded from (see Checkpoint); a .json file is read in the old format
+    static final Path checkpointPath = Path.of(System.getProperty("checkpoint",
+            "D:\\Jakob\\Programming\\Java\\NeuralNetwork\\src\\main\\resources\\neural_network.nnck"));
+
    public static void main(String[] args) throws InterruptedException {
        System.out.println("Runnning Neural network in Java");
        loadDataPoints();
        System.out.println("Creating neural network");
-       NeuralNetwork nn = new NeuralNetwork();
+       NeuralNetwork nn = new NeuralNetwork(precision);
+       if (outputName != null) {
+           nn.setOutputActivation(Activation.valueOf(outputName.toUpperCase()));
+       }
+       if (optimizerName != null) {
+           nn.setOptimizer(Optimizer.named(optimizerName));
+       }
+       nn.setThreads(Runtime.getRuntime().availableProcessors());
+       nn.setPublishInterval(PUBLISH_INTERVAL);
        new DrawScreen(nn);
        learn(nn);
     }
 
     private static void loadDataPoints() {
         System.out.println("Loading Data points...");
-        dataPoints = getRandomPoints(getPointsAsList(), 16000);
-        validationDataPoints = getPointsAsList();
-        validationDataPoints.removeIf(dataPoints::contains);
-        System.out.println("Finished loading data points");
+        Dataset dataset = new Dataset(getPointsAsList());
+        // stratified, so every class keeps its share in both sets
+        Dataset.Split split = dataset.split(TRAIN_SAMPLES, SPLIT_SEED);
+        dataPoints = split.train();
+        validationDataPoints = split.validation();
+        System.out.println("Finished loading data points: " + dataPoints.size() + " training, "
+                + validationDataPoints.size() + " validation");
     }
 
     private static boolean isStillLearning = true;
     public static boolean learning = false;
 
+    // -DloaderThreads=... : threads that load and augment the upcoming batches while the current one trains
+    private static final int LOADER_THREADS = Integer.getInteger("loaderThreads", 2);
+    // -DprefetchBatches=... : how many batches the loader may prepare ahead
+    private static final int PREFETCH_BATCHES = Integer.getInteger("prefetchBatches", 8);
+    private static final double AUGMENT_PROBABILITY = 0.3;
+    // -DprobeSamples=... : size of the stratified sample the cost is tracked on between validations
+    static final int PROBE_SAMPLES = Integer.getInteger("probeSamples", 250);
+
+    // -DmetricsInterval=... : seconds between metrics lines (see TrainingMetrics), 0 for the MBeans only
+    private static final long METRICS_INTERVAL = Long.getLong("metricsInterval", 10);
+
+    // improved networks are written in the background so the batch loop never waits on the disk
+    private static final CheckpointWriter checkpoints = new CheckpointWriter(checkpointPath);
+
     public static void learn(NeuralNetwork nn) throws InterruptedException {
         System.out.println("Starting learning");
+        TrainingMetrics.get().start(METRICS_INTERVAL);
         isStillLearning = true;
         long startTime = System.currentTimeMillis();
 
-        List<DataPoint> randomBatch = getRandomPoints(dataPoints, 250);
+        // stratified, so the cost of one probe compares fairly with the next
+        Sampler randomBatch = new Sampler(dataPoints, PROBE_SAMPLES, Sampler.Mode.STRATIFIED, System.nanoTime());
 
         double lowest_cost = nn.totalCost(randomBatch);
 
@@ -52,10 +111,11 @@ public class Main {
         long iteration = 0;
         int epoch = 0;
 
-        double initialLR = 0.05;
+        double initialLR = initialLearningRate(nn.getOptimizer());
         double decayRate = 0.99;
 
-        Random rand = new Random();
+        BatchLoader loader = new BatchLoader(dataPoints, batchSize, size, LOADER_THREADS, PREFETCH_BATCHES,
+                AUGMENT_PROBABILITY, System.nanoTime());
 
         while(isStillLearning) {
             if(!learning) {
@@ -63,24 +123,15 @@ public class Main {
                 continue;
             }
 
-            List<List<DataPoint>> batches = getBatches(dataPoints, batchSize);
             if(epoch % 4 == 0)
-                randomBatch = getRandomPoints(dataPoints, 250);
+                randomBatch.draw();
 
             epoch++;
 
-            for(List<DataPoint> batch : batches) {
+            loader.startEpoch();
+            List<Sample> augmentedBatch;
+            while ((augmentedBatch = loader.next()) != null) {
                 float learningRate = (float) (initialLR * Math.pow(decayRate, epoch));
-                List<DataPoint> augmentedBatch = new ArrayList<>();
-
-                for(DataPoint dp : batch) {
-                    if(rand.nextDouble() < 0.3) {
-                        DataPoint augmented = augment(dp);
-                        augmentedBatch.add(augmented);
-                    } else {
-                        augmentedBatch.add(dp);
-                    }
-                }
 
                 nn.learn(augmentedBatch, learningRate);
                 iteration++;
@@ -91,11 +142,15 @@ public class Main {
                     System.out.println("Cost: " + cost);
                     System.out.println("Lowest Cost: " + lowest_cost);
                     System.out.println("Learning Rate: " + learningRate);
+                    System.out.println("Batch queue: " + loader.getQueueDepth() + " ready, avg "
+                            + String.format("%.1f", loader.getAverageQueueDepth()) + ", " + loader.getStalls()
+                            + " stalls, " + String.format("%.1f", loader.getStallMillis()) + " ms waited");
 
                     if (cost < lowest_cost) {
                         lowest_cost = cost;
-                        save(nn);
-                        System.out.println("Finished saving");
+                        checkpoints.save(nn);
+                        System.out.println("Checkpoint queued (snapshot " + checkpoints.getLastSnapshotMillis()
+                                + " ms, last write " + checkpoints.getLastWriteMillis() + " ms)");
                     }
 
                     if(cost < 0.001) {
@@ -111,16 +166,30 @@ public class Main {
                     break;
                 }
             }
+
+            // the whole validation set, split across the network's worker threads
+            if (isStillLearning && !validationDataPoints.isEmpty()) {
+                System.out.println("Epoch " + epoch + " validation: " + nn.evaluate(validationDataPoints, 3));
+            }
         }
 
+        loader.close();
         double cost = nn.totalCost(randomBatch);
 
         if (cost < lowest_cost) {
-            save(nn);
-            System.out.println("Finished saving");
+            checkpoints.save(nn);
         }
-        else {
-            nn.load();
+        // the final save, or the best one we are about to load, has to be on disk first; if it is
+        // not, stop here rather than reload an older file or fall back to a random network
+        try {
+            checkpoints.flush();
+            System.out.println("Finished saving (" + checkpoints.getWrites() + " written, "
+                    + checkpoints.getCoalesced() + " coalesced, max write " + checkpoints.getMaxWriteMillis() + " ms)");
+            if (cost >= lowest_cost && Files.exists(checkpointPath)) {
+                nn.load(checkpointPath);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
 
         System.out.println("Final cost: " + cost);
@@ -128,136 +197,49 @@ public class Main {
         System.out.println("Lowest Cost: " + lowest_cost);
     }
 
+    /** -DlearningRate if given, otherwise the usual starting rate for the optimizer the network trains with */
+    private static double initialLearningRate(Optimizer optimizer) {
+        if (learningRate != null) {
+            return Double.parseDouble(learningRate);
+        }
+        return optimizer.isAdaptive() ? 0.001 : 0.05;
+    }
+
     public static void stopLearning() {
         isStillLearning = false;
     }
 
 
-    @SuppressWarnings("unchecked")
     public static void save(NeuralNetwork nn) {
         System.out.println("Saving...");
-
-        JSONObject obj = new JSONObject();
-        Layer[] layers = nn.getLayers();
-
-        for (int i = 0; i < layers.length; i++) {
-            Layer layer = layers[i];
-            JSONObject layerObj = new JSONObject();
-
-            // Input/output dimensions
-            layerObj.put("nIn", layer.getnIn());
-            layerObj.put("nOut", layer.getnOut());
-
-            // Serialize weights as a 2D array
-            double[][] weights = layer.getWeights();
-            JSONArray weightsArray = new JSONArray();
-            for (double[] row : weights) {
-                JSONArray rowArray = new JSONArray();
-                for (double val : row) {
-                    rowArray.add(val);
-                }
-                weightsArray.add(rowArray);
-            }
-            layerObj.put("weights", weightsArray);
-
-            // Serialize biases as an array
-            double[] biases = layer.getBiases();
-            JSONArray biasesArray = new JSONArray();
-            for (double bias : biases) {
-                biasesArray.add(bias);
-            }
-            layerObj.put("biases", biasesArray);
-
-            obj.put("layer_" + i, layerObj);
-        }
-
-        try (FileWriter file = new FileWriter("D:\\Jakob\\Programming\\Java\\NeuralNetwork\\src\\main\\resources\\neural_network.json")) {
-            file.write(obj.toJSONString());
-            file.flush();
+        try {
+            nn.save(checkpointPath);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private static final ThreadLocal<Augmenter> augmenters =
+            ThreadLocal.withInitial(() -> new Augmenter(size, new SplittableRandom()));
 
-
-
-    public static List<DataPoint> getRandomPoints(List<DataPoint> dataPoints, int amount) {
-        List<DataPoint> randomPoints = new ArrayList<>();
-        for (int i = 0; i < amount; i++) {
-            randomPoints.add(dataPoints.get((int) (Math.random() * dataPoints.size())));
-        }
-        return randomPoints;
-
-    }
-
-    private static List<List<DataPoint>> getBatches(List<DataPoint> data, int batchSize) {
-        List<List<DataPoint>> batches = new ArrayList<>();
-        Collections.shuffle(data, ThreadLocalRandom.current()); // Shuffle once per epoch
-
-        for (int i = 0; i < data.size(); i += batchSize) {
-            int end = Math.min(i + batchSize, data.size());
-            batches.add(data.subList(i, end));
-        }
-
-        return batches;
+    /** A randomly shifted, mirrored and noised copy of dp; training goes through {@link BatchLoader} instead */
+    public static Sample augment(Sample dp) {
+        Augmenter augmenter = augmenters.get();
+        return augmenter.augment(dp, augmenter.newSample());
     }
 
-    public static DataPoint augment(DataPoint dp) {
-        int size = 80;
-        double[][] grid = new double[size][size];
-
-        // Reshape flat input
-        for (int i = 0; i < size; i++)
-            System.arraycopy(dp.inputs(), i * size, grid[i], 0, size);
-
-        Random rand = new Random();
-
-        int maxShift = rand.nextDouble() < 0.1 ? rand.nextBoolean() ? 3 : 2 : 1;
-        int dx = rand.nextInt(2 * maxShift + 1) - maxShift;  // -2 to +2
-        int dy = rand.nextInt(2 * maxShift + 1) - maxShift;
-
-        double[][] shifted = new double[size][size];
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                int srcI = i - dy;
-                int srcJ = j - dx;
-                if (srcI >= 0 && srcI < size && srcJ >= 0 && srcJ < size)
-                    shifted[i][j] = grid[srcI][srcJ];
-                else
-                    shifted[i][j] = 0.0; // pad with white
-            }
-        }
-
-        // MIRROR (horizontal flip) — rare
-        if (rand.nextBoolean()) {
-            for (int i = 0; i < size; i++) {
-                for (int j = 0; j < size / 2; j++) {
-                    double temp = shifted[i][j];
-                    shifted[i][j] = shifted[i][size - 1 - j];
-                    shifted[i][size - 1 - j] = temp;
-                }
-            }
+    /** The class names written next to the dataset when it was generated, or null for datasets without them */
+    static List<String> datasetLabels() {
+        try {
+            return Dataset.readLabels(Path.of(datasetPath));
+        } catch (IOException e) {
+            System.out.println("Could not read the dataset's labels: " + e.getMessage());
+            return null;
         }
-
-        // Add light pixel noise
-        for (int i = 0; i < size; i++)
-            for (int j = 0; j < size; j++)
-                if (rand.nextDouble() < 0.01)
-                    shifted[i][j] = 1.0 - shifted[i][j];
-
-        // Flatten to 1D again
-        double[] augmented = new double[size * size];
-        for (int i = 0; i < size; i++)
-            for (int j = 0; j < size; j++)
-                augmented[i * size + j] = shifted[i][j];
-
-        return new DataPoint(augmented, dp.expectedOutputs());
     }
 
     //TODO: pass length as parameter
-    private static DataPoint convertToDataPoint(double[] values) {
-        double[] inputs = new double[Main.size * Main.size];
+    private static Sample convertToDataPoint(double[] values) {
         double[] expectedOutputs = new double[10];
 
         for (int i = 0; i < 10; i++) {
@@ -265,17 +247,49 @@ public class Main {
         }
 
         //The rest of the values are the inputs
+        double[] inputs = new double[Main.size * Main.size];
         for (int i = 10; i < values.length; i++) {
             inputs[i - 10] = values[i];
         }
 
+        // clamped 0/1 doodles: one bit per pixel instead of a double
+        BitDataPoint packed = BitDataPoint.pack(inputs, expectedOutputs);
+        if (packed != null) {
+            return packed;
+        }
+
+        if (precision == Precision.FLOAT) {
+            float[] floatInputs = new float[inputs.length];
+            for (int i = 0; i < inputs.length; i++) {
+                floatInputs[i] = (float) inputs[i];
+            }
+            return new FloatDataPoint(floatInputs, expectedOutputs);
+        }
+
         return new DataPoint(inputs, expectedOutputs);
     }
 
-    private static List<DataPoint> getPointsAsList() {
-        List<DataPoint> dataPoints = new ArrayList<>();
+    private static List<Sample> getPointsAsList() {
+        if (datasetPath.endsWith(".bin")) {
+            try {
+                return BinaryDataset.open(Path.of(datasetPath));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        try {
+            return readCsv(Path.of(datasetPath));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** Parses a dataset CSV: 10 one‑hot columns, then the pixels of one doodle per line */
+    public static List<Sample> readCsv(Path file) throws IOException {
+        List<Sample> dataPoints = new ArrayList<>();
 
-        try (BufferedReader br = new BufferedReader(new FileReader("D:\\Jakob\\Programming\\Java\\NeuralNetwork\\src\\main\\resources\\doodles_" + size + "px.csv"))) {
+        try (BufferedReader br = new BufferedReader(new FileReader(file.toFile()))) {
             String line;
             while ((line = br.readLine()) != null) {
                 String[] current_values = line.split(",");
@@ -287,8 +301,6 @@ public class Main {
 
                 dataPoints.add(convertToDataPoint(current_values_double)); // Convert immediately
             }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
         }
 
         return dataPoints;
@@ -1,83 +1,295 @@
 package de.jakob;
 
-
+import de.jakob.data.Sampler;
+import de.jakob.metrics.Phase;
+import de.jakob.metrics.TrainingMetrics;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
 
 import java.io.FileReader;
-import java.util.List;
-
-// NeuralNetwork.java
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class NeuralNetwork {
     private Layer[] layers;
+    private final Precision precision;
+
+    // what the last layer applies; new layers get it too, a checkpoint brings its own
+    private Activation outputActivation = Activation.RELU;
+
+    // how gradients become updates, and how many it made since its state was last reset
+    private Optimizer optimizer = Optimizer.DEFAULT;
+    private long optimizerSteps;
+
+    private static final TrainingMetrics METRICS = TrainingMetrics.get();
+
+    // rows pushed through the layers at once; bigger chunks are split to bound workspace memory
+    private static final int MAX_BATCH_ROWS = 64;
+
+    // data‑parallel training: one workspace per worker
+    private int threads = 1;
+    private ExecutorService pool;
+    private Workspace[] workspaces;
+
+    // forward passes outside training get a workspace per thread, so they can run concurrently;
+    // replaced together with the layers
+    private volatile ThreadLocal<Workspace> inference;
+
+    // the model readers outside training use: an immutable copy, replaced every publishInterval steps
+    private final AtomicReference<NeuralNetwork> published = new AtomicReference<>();
+    private int publishInterval;
+    private long steps;
 
     public NeuralNetwork(int... nodes) {
-        createNetwork(nodes);
+        this(Precision.DOUBLE, new Random(), nodes);
+    }
+
+    /** Network whose initial weights come from the given (e.g. seeded) generator */
+    public NeuralNetwork(Random random, int... nodes) {
+        this(Precision.DOUBLE, random, nodes);
+    }
+
+    public NeuralNetwork(Precision precision, Random random, int... nodes) {
+        this.precision = precision;
+        createNetwork(random, nodes);
     }
 
     public NeuralNetwork() {
+        this(Precision.DOUBLE);
+    }
+
+    /** A published snapshot around copied layers; it is its own published model */
+    private NeuralNetwork(Precision precision, Layer[] layers) {
+        this.precision = precision;
+        this.layers = layers;
+        this.outputActivation = layers[layers.length - 1].getActivation();
+        this.inference = ThreadLocal.withInitial(this::newInferenceWorkspace);
+        this.published.set(this);
+    }
+
+    /** Loads the saved network, storing it in the given precision */
+    public NeuralNetwork(Precision precision) {
+        this.precision = precision;
         load();
     }
 
-    private void createNetwork(int... nodes) {
+    private void createNetwork(Random random, int... nodes) {
         layers = new Layer[nodes.length - 1];
         for (int i = 0; i < layers.length; i++) {
-            layers[i] = new Layer(nodes[i], nodes[i + 1]);
+            layers[i] = new Layer(nodes[i], nodes[i + 1], random, precision);
         }
+        layers[layers.length - 1].setActivation(outputActivation);
+        optimizerSteps = 0;
+        workspaces = null;
+        inference = ThreadLocal.withInitial(this::newInferenceWorkspace);
+        if (published.get() != null) publish();
     }
 
-    @SuppressWarnings("unchecked")
-    public void load() {
-        JSONParser parser = new JSONParser();
-        try (FileReader reader = new FileReader("D:\\Jakob\\Programming\\Java\\NeuralNetwork\\src\\main\\resources\\neural_network.json")) {
-            JSONObject jsonObject = (JSONObject) parser.parse(reader);
-            int count = jsonObject.size();
-            layers = new Layer[count];
-            for (int i = 0; i < count; i++) {
+    /**
+     * Replaces the layers with the ones stored in file, a binary {@link Checkpoint}
+     * or a network saved as JSON by earlier versions. A checkpoint with optimizer state also
+     * restores the optimizer, so training resumes where it was saved.
+     */
+    public void load(Path file) throws IOException {
+        if (file.toString().endsWith(".json")) {
+            layers = loadJson(file);
+            optimizerSteps = 0;
+        } else {
+            Checkpoint.Loaded loaded = Checkpoint.read(file, precision);
+            layers = loaded.layers();
+            if (loaded.optimizer() != null) optimizer = loaded.optimizer();
+            optimizerSteps = loaded.steps();
+        }
+        outputActivation = layers[layers.length - 1].getActivation();
+        workspaces = null;
+        inference = ThreadLocal.withInitial(this::newInferenceWorkspace);
+        if (published.get() != null) publish();
+    }
+
+    /** Writes a {@link Checkpoint} of the current parameters to file */
+    public void save(Path file) throws IOException {
+        Checkpoint.of(this).write(file);
+    }
+
+    private Layer[] loadJson(Path file) throws IOException {
+        try (FileReader reader = new FileReader(file.toFile())) {
+            JSONObject jsonObject = (JSONObject) new JSONParser().parse(reader);
+            Layer[] loaded = new Layer[jsonObject.size()];
+            for (int i = 0; i < loaded.length; i++) {
                 JSONObject layerObj = (JSONObject) jsonObject.get("layer_" + i);
                 int numIn  = ((Long) layerObj.get("nIn")).intValue();
                 int numOut = ((Long) layerObj.get("nOut")).intValue();
-                Layer layer = new Layer(numIn, numOut);
-                layer.loadFromJson(layerObj);
-                layers[i] = layer;
+                loaded[i] = new Layer(numIn, numOut, precision);
+                loaded[i].loadFromJson(layerObj);
             }
+            return loaded;
+        } catch (ParseException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Number of worker threads {@link #learn} splits each batch across.
+     * For a fixed seed and thread count the result is deterministic.
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be at least 1");
+        if (pool != null) pool.shutdown();
+        this.threads = threads;
+        this.pool = threads > 1 ? Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "nn-worker");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+        workspaces = null;
+    }
+
+    /**
+     * Switches how gradients are applied. Velocity carries over between SGD and Nesterov and the
+     * moments between Adam and AdamW; switching between the two families starts from zero state.
+     */
+    public void setOptimizer(Optimizer optimizer) {
+        if (optimizer.isAdaptive() != this.optimizer.isAdaptive()) {
+            for (Layer layer : layers) layer.resetOptimizerState();
+            optimizerSteps = 0;
+        }
+        this.optimizer = optimizer;
+    }
+
+    public Optimizer getOptimizer() {
+        return optimizer;
+    }
+
+    /** Updates made with the current optimizer state, which Adam's bias correction depends on */
+    long getOptimizerSteps() {
+        return optimizerSteps;
+    }
+
+    /**
+     * Switches what the output layer applies. {@link Activation#SOFTMAX} trains against the
+     * categorical cross‑entropy, which matches the a − y gradient back‑prop uses; RELU keeps the
+     * original per‑class binary cross‑entropy cost. Saved with the network in a {@link Checkpoint}.
+     */
+    public void setOutputActivation(Activation activation) {
+        outputActivation = activation;
+        layers[layers.length - 1].setActivation(activation);
+        if (published.get() != null) publish();
+    }
+
+    public Activation getOutputActivation() {
+        return outputActivation;
+    }
+
+    /**
+     * Publishes a snapshot for {@link #published()} after every interval‑th {@link #learn} step;
+     * 0 publishes only on explicit {@link #publish()} calls. Each snapshot copies all weights, so
+     * the interval bounds what publishing costs the training thread.
+     */
+    public void setPublishInterval(int interval) {
+        if (interval < 0) throw new IllegalArgumentException("interval must not be negative");
+        this.publishInterval = interval;
+    }
+
+    /** Copies the current weights into a new read‑only network and makes it the published one */
+    public NeuralNetwork publish() {
+        Layer[] copy = new Layer[layers.length];
+        for (int l = 0; l < layers.length; l++) copy[l] = layers[l].snapshot();
+        NeuralNetwork snapshot = new NeuralNetwork(precision, copy);
+        published.set(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * The most recently published snapshot. Its weights never change, so other threads can run
+     * inference on it without locking while this network keeps training. Must not be trained.
+     */
+    public NeuralNetwork published() {
+        NeuralNetwork snapshot = published.get();
+        return snapshot != null ? snapshot : publish();
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    /** Loads the checkpoint at -Dcheckpoint=..., or starts from random weights if there is none */
+    public void load() {
+        try {
+            load(Main.checkpointPath);
         } catch (Exception e) {
             System.out.println("Failed to load network, creating random one.");
-            createNetwork(Main.size * Main.size, 256, 256, 128, 10);
+            createNetwork(new Random(), Main.size * Main.size, 256, 256, 128, 10);
         }
 
-        System.out.println("initial cost: " + totalCost(Main.getRandomPoints(Main.dataPoints, 250)));
+        System.out.println("initial cost: " + totalCost(
+                new Sampler(Main.dataPoints, Main.PROBE_SAMPLES, Sampler.Mode.STRATIFIED, System.nanoTime())));
     }
 
 
-    /** Forward pass */
+    /**
+     * Forward pass into a new array. Only reads the weights and uses the calling thread's own
+     * buffers, so any number of threads may call it at once.
+     */
     public double[] calculate(double[] input) {
-        double[] output = input;
-        for (Layer layer : layers) {
-            output = layer.calculateOutputs(output);
+        return calculate(input, new double[layers[layers.length - 1].getnOut()]);
+    }
+
+    /** {@link #calculate(double[])} into out, which is returned */
+    public double[] calculate(double[] input, double[] out) {
+        Workspace ws = inference.get();
+        ws.load(input);
+        int n = out.length;
+        if (precision == Precision.FLOAT) {
+            float[] result = forwardF(ws);
+            for (int j = 0; j < n; j++) out[j] = result[j];
+        } else {
+            System.arraycopy(forward(ws), 0, out, 0, n);
         }
-        return output;
+        return out;
     }
 
     /** Cross‑entropy cost for one point */
-    public double cost(DataPoint dataPoint) {
-        double[] a = calculate(dataPoint.inputs());
+    public double cost(Sample dataPoint) {
+        return cost(calculate(dataPoint.inputs()), 0, dataPoint.expectedOutputs(), 0);
+    }
+
+    /**
+     * Cross‑entropy of the output vector a[aOff..] against y[yOff..]: categorical for softmax outputs,
+     * summed per class binary for ReLU ones
+     */
+    private double cost(double[] a, int aOff, double[] y, int yOff) {
         double sum = 0;
         double eps = 1e-12;
-        double[] y = dataPoint.expectedOutputs();
+        int n = layers[layers.length - 1].getnOut();
+
+        if (outputActivation == Activation.SOFTMAX) {
+            for (int i = 0; i < n; i++) {
+                if (y[yOff + i] != 0) sum -= y[yOff + i] * Math.log(Math.max(a[aOff + i], Double.MIN_NORMAL));
+            }
+            return sum;
+        }
 
-        for (int i = 0; i < a.length; i++) {
+        for (int i = 0; i < n; i++) {
             // Ensure a[i] and 1 - a[i] are not too close to 0
-            double a_i = Math.max(Math.min(a[i], 1 - eps), eps); // Clamp to avoid values too close to 0 or 1
+            double a_i = Math.max(Math.min(a[aOff + i], 1 - eps), eps); // Clamp to avoid values too close to 0 or 1
             double one_minus_a_i = Math.max(Math.min(1 - a_i, 1 - eps), eps);
+            double y_i = y[yOff + i];
 
-            sum += - (y[i] * Math.log(a_i) + (1 - y[i]) * Math.log(one_minus_a_i));
+            sum += - (y_i * Math.log(a_i) + (1 - y_i) * Math.log(one_minus_a_i));
         }
 
         return sum;
@@ -85,72 +297,274 @@ public class NeuralNetwork {
 
 
     /** Single mini‑batch gradient step */
-    public void learn(List<DataPoint> dataPoints, double learningRate) {
-        // reset any old gradients
-        clearAllGradients();
-
-        for (DataPoint dp : dataPoints) {
-            updateAllGradients(dp);
+    public void learn(List<? extends Sample> dataPoints, double learningRate) {
+        // the gradients start at zero: the previous step's update cleared them
+        if (threads > 1 && dataPoints.size() > 1) {
+            updateAllGradientsParallel(dataPoints);
+        } else {
+            updateAllGradients(dataPoints, 0, dataPoints.size(), workspaces()[0]);
         }
 
 
         // apply the average gradient
-        applyAllGradients(learningRate / dataPoints.size());
+        long applying = System.nanoTime();
+        applyAllGradients(learningRate, 1.0 / dataPoints.size());
+        METRICS.record(Phase.APPLY, System.nanoTime() - applying);
+        METRICS.step(dataPoints.size());
+
+        steps++;
+        if (publishInterval > 0 && steps % publishInterval == 0) {
+            publish();
+        }
+    }
+
+
+    /** Batched forward pass over the rows currently loaded into ws */
+    private double[] forward(Workspace ws) {
+        double[] output = ws.inputs;
+        int first = 0;
+        if (ws.sparse) {
+            layers[0].calculateSparseOutputs(ws.activeStart, ws.activeIdx, ws.activeVal, ws.rows, ws.layers[0]);
+            output = ws.layers[0].activations;
+            first = 1;
+        }
+        for (int i = first; i < layers.length; i++) {
+            output = layers[i].calculateOutputs(output, ws.rows, ws.layers[i]);
+        }
+        return output;
+    }
+
+    private float[] forwardF(Workspace ws) {
+        float[] output = ws.inputsF;
+        int first = 0;
+        if (ws.sparse) {
+            layers[0].calculateSparseOutputs(ws.activeStart, ws.activeIdx, ws.activeValF, ws.rows, ws.layers[0]);
+            output = ws.layers[0].activationsF;
+            first = 1;
+        }
+        for (int i = first; i < layers.length; i++) {
+            output = layers[i].calculateOutputs(output, ws.rows, ws.layers[i]);
+        }
+        return output;
     }
 
+    /** Back‑props data[from, to) into the gradients of ws, {@link #MAX_BATCH_ROWS} rows at a time */
+    private void updateAllGradients(List<? extends Sample> data, int from, int to, Workspace ws) {
+        for (int start = from; start < to; start += MAX_BATCH_ROWS) {
+            long began = System.nanoTime();
+            ws.load(data, start, Math.min(start + MAX_BATCH_ROWS, to));
+
+            // forward‑prop
+            if (precision == Precision.FLOAT) {
+                forwardF(ws);
+            } else {
+                forward(ws);
+            }
+            long forwarded = System.nanoTime();
+            METRICS.record(Phase.FORWARD, forwarded - began);
 
-    private void updateAllGradients(DataPoint dp) {
-        // forward‑prop
-        calculate(dp.inputs());
+            if (precision == Precision.FLOAT) {
+                backwardF(ws);
+            } else {
+                backward(ws);
+            }
+            METRICS.record(Phase.BACKWARD, System.nanoTime() - forwarded);
+        }
+    }
 
+    /** Back‑props the forward pass held in ws into its gradients */
+    private void backward(Workspace ws) {
         // back‑prop on output layer
-        Layer out = layers[layers.length - 1];
-        double[] nodeVals = out.calculateOutputLayerNodeValues(dp.expectedOutputs());
-        out.updateGradients(nodeVals);
+        int last = layers.length - 1;
+        double[] nodeVals = layers[last].calculateOutputLayerNodeValues(ws.expected, ws.layers[last]);
+        layers[last].updateGradients(nodeVals, ws.layers[last]);
 
         // back‑prop through hidden
-        for (int i = layers.length - 2; i >= 0; i--) {
-            Layer cur = layers[i];
-            Layer next = layers[i + 1];
-            nodeVals = cur.calculateHiddenLayerNodeValues(next, nodeVals);
-            cur.updateGradients(nodeVals);
+        for (int i = last - 1; i >= 0; i--) {
+            nodeVals = layers[i].calculateHiddenLayerNodeValues(layers[i + 1], nodeVals, ws.layers[i]);
+            layers[i].updateGradients(nodeVals, ws.layers[i]);
         }
     }
 
-    private void applyAllGradients(double lr) {
-        for (Layer layer : layers) {
-            layer.applyGradients(lr);
+    /**
+     * Splits the batch into one contiguous chunk per worker, lets every worker
+     * back‑prop its chunk into private buffers and then sums those buffers into
+     * the layers, again split across the workers by output row.
+     */
+    private void updateAllGradientsParallel(List<? extends Sample> batch) {
+        Workspace[] ws = workspaces();
+        int workers = Math.min(threads, batch.size());
+
+        List<Callable<Void>> tasks = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            int from = batch.size() * w / workers;
+            int to   = batch.size() * (w + 1) / workers;
+            Workspace own = ws[w];
+            tasks.add(() -> {
+                updateAllGradients(batch, from, to, own);
+                return null;
+            });
+        }
+        runAll(tasks);
+
+        LayerWorkspace[][] perLayer = new LayerWorkspace[layers.length][workers];
+        for (int l = 0; l < layers.length; l++) {
+            for (int w = 0; w < workers; w++) perLayer[l][w] = ws[w].layers[l];
         }
+
+        long reducing = System.nanoTime();
+        tasks.clear();
+        for (int t = 0; t < threads; t++) {
+            int part = t;
+            tasks.add(() -> {
+                for (int l = 0; l < layers.length; l++) {
+                    int rows = layers[l].getnOut();
+                    layers[l].reduceGradients(perLayer[l], rows * part / threads, rows * (part + 1) / threads);
+                }
+                return null;
+            });
+        }
+        runAll(tasks);
+        METRICS.record(Phase.REDUCE, System.nanoTime() - reducing);
     }
 
-    private void clearAllGradients() {
+    private void backwardF(Workspace ws) {
+        int last = layers.length - 1;
+        float[] nodeVals = layers[last].calculateOutputLayerNodeValues(ws.expectedF, ws.layers[last]);
+        layers[last].updateGradients(nodeVals, ws.layers[last]);
+
+        for (int i = last - 1; i >= 0; i--) {
+            nodeVals = layers[i].calculateHiddenLayerNodeValues(layers[i + 1], nodeVals, ws.layers[i]);
+            layers[i].updateGradients(nodeVals, ws.layers[i]);
+        }
+    }
+
+    private void runAll(List<Callable<Void>> tasks) {
+        try {
+            for (Future<Void> f : pool.invokeAll(tasks)) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /** Worker 0 writes straight into the layer gradients, the others get their own */
+    private Workspace[] workspaces() {
+        if (workspaces == null) {
+            workspaces = new Workspace[threads];
+            for (int w = 0; w < threads; w++) {
+                LayerWorkspace[] perLayer = new LayerWorkspace[layers.length];
+                for (int l = 0; l < layers.length; l++) {
+                    perLayer[l] = w == 0 ? layers[l].sharedWorkspace() : layers[l].newWorkspace();
+                }
+                workspaces[w] = newWorkspace(perLayer);
+            }
+        }
+        return workspaces;
+    }
+
+    private Workspace newInferenceWorkspace() {
+        LayerWorkspace[] perLayer = new LayerWorkspace[layers.length];
+        for (int l = 0; l < layers.length; l++) {
+            perLayer[l] = layers[l].inferenceWorkspace();
+        }
+        return newWorkspace(perLayer);
+    }
+
+    private Workspace newWorkspace(LayerWorkspace[] perLayer) {
+        return new Workspace(perLayer, layers[0].getnIn(), layers[layers.length - 1].getnOut(), precision);
+    }
+
+    /** One optimizer step on gradients scaled by scale, which also zeroes them for the next batch */
+    private void applyAllGradients(double lr, double scale) {
+        optimizerSteps++;
         for (Layer layer : layers) {
-            layer.clearGradients();
+            layer.applyGradients(optimizer, lr, scale, optimizerSteps);
         }
     }
 
-    /** Average cost over a dataset */
-    public double totalCost(List<DataPoint> data) {
-        double sum = 0;
-        for (DataPoint dp : data) sum += cost(dp);
-        return sum / data.size();
+    /** Average cost over a dataset; safe to call from several threads like {@link #calculate} */
+    public double totalCost(List<? extends Sample> data) {
+        return evaluate(data, 1).getCost();
     }
 
     /** How many are classified correctly */
-    public int correctPoints(List<DataPoint> data) {
-        int c = 0;
-        for (DataPoint dp : data) {
-            if (dp.expectedOutputs()[ classify(dp.inputs()) ] == 1) c++;
+    public int correctPoints(List<? extends Sample> data) {
+        return (int) evaluate(data, 1).getCorrect();
+    }
+
+    /**
+     * Cost, accuracy, top‑k accuracy and confusion matrix over data in one pass. The data is split
+     * into one contiguous part per worker thread (see {@link #setThreads}), each pushed through
+     * the network {@link #MAX_BATCH_ROWS} rows at a time.
+     */
+    public Evaluation evaluate(List<? extends Sample> data, int k) {
+        long start = System.nanoTime();
+        int n = layers[layers.length - 1].getnOut();
+        int workers = pool == null ? 1 : Math.min(threads, (data.size() + MAX_BATCH_ROWS - 1) / MAX_BATCH_ROWS);
+        if (workers <= 1) {
+            Evaluation result = new Evaluation(n, k);
+            evaluate(data, 0, data.size(), result);
+            METRICS.record(Phase.EVALUATE, System.nanoTime() - start);
+            return result;
+        }
+
+        Evaluation[] parts = new Evaluation[workers];
+        List<Callable<Void>> tasks = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            int from = data.size() * w / workers;
+            int to   = data.size() * (w + 1) / workers;
+            Evaluation part = parts[w] = new Evaluation(n, k);
+            tasks.add(() -> {
+                evaluate(data, from, to, part);
+                return null;
+            });
+        }
+        runAll(tasks);
+
+        for (int w = 1; w < workers; w++) parts[0].merge(parts[w]);
+        METRICS.record(Phase.EVALUATE, System.nanoTime() - start);
+        return parts[0];
+    }
+
+    private void evaluate(List<? extends Sample> data, int from, int to, Evaluation result) {
+        Workspace ws = inference.get();
+        int last = layers.length - 1, n = layers[last].getnOut();
+        boolean softmax = outputActivation == Activation.SOFTMAX;
+        double[] row = precision == Precision.FLOAT ? new double[MAX_BATCH_ROWS * n] : null;
+        for (int start = from; start < to; start += MAX_BATCH_ROWS) {
+            ws.load(data, start, Math.min(start + MAX_BATCH_ROWS, to));
+            double[] out;
+            if (precision == Precision.FLOAT) {
+                float[] outF = forwardF(ws);
+                for (int k = 0; k < ws.rows * n; k++) row[k] = outF[k];
+                out = row;
+            } else {
+                out = forward(ws);
+            }
+            for (int r = 0; r < ws.rows; r++) {
+                double[] y = data.get(start + r).expectedOutputs();
+                // softmax rows already have their log‑sum‑exp, the cost needs no further log
+                double cost = softmax ? layers[last].crossEntropy(ws.layers[last], r, y, 0) : cost(out, r * n, y, 0);
+                result.add(argmax(y, 0, n), out, r * n, cost);
+            }
         }
-        return c;
     }
 
-    /** argmax of the network’s output */
+    /** argmax of the network’s output; safe to call from several threads like {@link #calculate} */
     public int classify(double[] input) {
         double[] out = calculate(input);
+        return argmax(out, 0, out.length);
+    }
+
+    private static int argmax(double[] a, int off, int n) {
         int max = 0;
-        for (int i = 1; i < out.length; i++) {
-            if (out[i] > out[max]) max = i;
+        for (int i = 1; i < n; i++) {
+            if (a[off + i] > a[off + max]) max = i;
         }
         return max;
     }
@@ -0,0 +1,19 @@
+package de.jakob;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Shared, read‑only one‑hot target vectors so compact samples need not carry their own. */
+public final class OneHot {
+    private static final ConcurrentHashMap<Integer, double[][]> BY_CLASSES = new ConcurrentHashMap<>();
+
+    private OneHot() {}
+
+    /** The one‑hot vector for label out of classes; callers must not modify it */
+    public static double[] of(int label, int classes) {
+        return BY_CLASSES.computeIfAbsent(classes, n -> {
+            double[][] vectors = new double[n][n];
+            for (int c = 0; c < n; c++) vectors[c][c] = 1.0;
+            return vectors;
+        })[label];
+    }
+}
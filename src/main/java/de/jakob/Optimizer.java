@@ -0,0 +1,70 @@
+package de.jakob;
+
+/**
+ * How {@link NeuralNetwork#learn} turns the summed gradients into a weight update. Every kind runs
+ * as one fused kernel per parameter array that reads the gradient, updates the optimizer state
+ * and the weights, and clears the gradient for the next batch in the same sweep.
+ *
+ * @param kind        the update rule
+ * @param momentum    velocity decay for SGD and Nesterov, β1 for Adam
+ * @param beta2       decay of Adam's second moment
+ * @param epsilon     what Adam adds to √v so small moments do not blow the step up
+ * @param weightDecay AdamW's decoupled decay, as a fraction of the learning rate per step
+ */
+public record Optimizer(Kind kind, double momentum, double beta2, double epsilon, double weightDecay) {
+
+    public enum Kind {
+        /** v = μ·v + lr·g, w −= v */
+        SGD,
+        /** Like SGD, but steps from where the velocity is about to carry the weights: w −= μ·v + lr·g */
+        NESTEROV,
+        /** A per‑weight step size from running averages of the gradient and its square */
+        ADAM,
+        /** Adam with weight decay applied straight to the weights instead of through the gradient */
+        ADAMW;
+
+        /** Adam and AdamW keep a second moment besides the velocity, and want much smaller learning rates */
+        public boolean isAdaptive() {
+            return this == ADAM || this == ADAMW;
+        }
+    }
+
+    /** What the network trained with before optimizers were pluggable */
+    public static final Optimizer DEFAULT = sgd(0.9);
+
+    public static Optimizer sgd(double momentum) {
+        return new Optimizer(Kind.SGD, momentum, 0, 0, 0);
+    }
+
+    public static Optimizer nesterov(double momentum) {
+        return new Optimizer(Kind.NESTEROV, momentum, 0, 0, 0);
+    }
+
+    public static Optimizer adam(double beta1, double beta2, double epsilon) {
+        return new Optimizer(Kind.ADAM, beta1, beta2, epsilon, 0);
+    }
+
+    public static Optimizer adamW(double beta1, double beta2, double epsilon, double weightDecay) {
+        return new Optimizer(Kind.ADAMW, beta1, beta2, epsilon, weightDecay);
+    }
+
+    /** sgd, nesterov, adam or adamw with the usual hyperparameters */
+    public static Optimizer named(String name) {
+        return switch (name.toLowerCase()) {
+            case "sgd"      -> DEFAULT;
+            case "nesterov" -> nesterov(0.9);
+            case "adam"     -> adam(0.9, 0.999, 1e-8);
+            case "adamw"    -> adamW(0.9, 0.999, 1e-8, 0.01);
+            default -> throw new IllegalArgumentException("Unknown optimizer: " + name);
+        };
+    }
+
+    public boolean isAdaptive() {
+        return kind.isAdaptive();
+    }
+
+    /** Parameter‑sized state arrays per weight and per bias: the velocity, plus the second moment for Adam */
+    int stateArrays() {
+        return isAdaptive() ? 2 : 1;
+    }
+}
@@ -0,0 +1,37 @@
+package de.jakob;
+
+/** One training example: the network inputs and the one‑hot expected output. */
+public interface Sample {
+
+    /** The inputs as a double array; compact implementations build it on every call */
+    double[] inputs();
+
+    double[] expectedOutputs();
+
+    /** Writes the inputs into dst starting at offset */
+    default void copyInputs(double[] dst, int offset) {
+        double[] in = inputs();
+        System.arraycopy(in, 0, dst, offset, in.length);
+    }
+
+    /** Writes the inputs into dst starting at offset, rounded to float */
+    default void copyInputs(float[] dst, int offset) {
+        double[] in = inputs();
+        for (int i = 0; i < in.length; i++) {
+            dst[offset + i] = (float) in[i];
+        }
+    }
+
+    /** True if every input is 0 or 1, so {@link #activeInputs} fully describes the sample */
+    default boolean isBinary() {
+        return false;
+    }
+
+    /**
+     * Writes the ascending indices of the inputs that are 1 into dst starting at offset and
+     * returns how many there are. Only defined when {@link #isBinary()} holds.
+     */
+    default int activeInputs(int[] dst, int offset) {
+        throw new UnsupportedOperationException("Not a binary sample");
+    }
+}
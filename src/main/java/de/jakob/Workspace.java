@@ -0,0 +1,160 @@
+package de.jakob;
+
+import java.util.Arrays;
+import java.util.List;
+
+/** Per‑thread buffers for pushing a batch through the whole network. */
+class Workspace {
+    final LayerWorkspace[] layers;
+    private final int nIn, nOut;
+    private final Precision precision;
+
+    double[] inputs;    // rows × nIn of the first layer
+    double[] expected;  // rows × nOut of the last layer
+    float[] inputsF, expectedF;
+    int rows;
+
+    // -DsparseDensity=... : batches with at most this fraction of non‑zero inputs skip the dense
+    // first‑layer product and only touch the weight columns of their non‑zero inputs
+    static final double SPARSE_DENSITY = Double.parseDouble(System.getProperty("sparseDensity", "0.1"));
+
+    // when the batch is sparse enough: CSR lists of the non‑zero inputs instead of a dense matrix
+    boolean sparse;
+    int[] activeStart = new int[1], activeIdx = new int[0];
+    double[] activeVal;  // null when every sample was binary, the non‑zeros are all 1 then
+    float[] activeValF;
+    private double[] valBuffer = new double[0];
+    private float[] valBufferF = new float[0];
+
+    Workspace(LayerWorkspace[] layers, int nIn, int nOut, Precision precision) {
+        this.layers = layers;
+        this.nIn  = nIn;
+        this.nOut = nOut;
+        this.precision = precision;
+        inputs    = new double[0];
+        expected  = new double[0];
+        inputsF   = new float[0];
+        expectedF = new float[0];
+    }
+
+    /**
+     * Copies data[from, to) into the target matrix and the inputs into either the dense input
+     * matrix or, when no more than {@link #SPARSE_DENSITY} of them are non‑zero, the CSR lists
+     */
+    void load(List<? extends Sample> data, int from, int to) {
+        rows = to - from;
+        boolean binary = true;
+        for (int r = 0; r < rows && binary; r++) {
+            binary = data.get(from + r).isBinary();
+        }
+        loadExpected(data, from);
+
+        int budget = (int) Math.min((long) (SPARSE_DENSITY * rows * nIn), (long) rows * nIn);
+        if (activeStart.length < rows + 1) activeStart = new int[rows + 1];
+        if (binary) {
+            if (activeIdx.length < rows * nIn) activeIdx = new int[rows * nIn];
+            int n = 0;
+            for (int r = 0; r < rows; r++) {
+                activeStart[r] = n;
+                n += data.get(from + r).activeInputs(activeIdx, n);
+            }
+            activeStart[rows] = n;
+            activeVal  = null;
+            activeValF = null;
+            sparse = n <= budget;
+            if (!sparse) expandBinary();
+            return;
+        }
+
+        if (precision == Precision.FLOAT) {
+            if (inputsF.length < rows * nIn) inputsF = new float[rows * nIn];
+            for (int r = 0; r < rows; r++) {
+                data.get(from + r).copyInputs(inputsF, r * nIn);
+            }
+        } else {
+            if (inputs.length < rows * nIn) inputs = new double[rows * nIn];
+            for (int r = 0; r < rows; r++) {
+                data.get(from + r).copyInputs(inputs, r * nIn);
+            }
+        }
+        sparse = gatherNonZeros(budget);
+    }
+
+    /** Loads a single dense input row, for inference */
+    void load(double[] input) {
+        rows = 1;
+        sparse = false;
+        if (precision == Precision.FLOAT) {
+            if (inputsF.length < nIn) inputsF = new float[nIn];
+            for (int i = 0; i < nIn; i++) inputsF[i] = (float) input[i];
+        } else {
+            if (inputs.length < nIn) inputs = new double[nIn];
+            System.arraycopy(input, 0, inputs, 0, nIn);
+        }
+    }
+
+    private void loadExpected(List<? extends Sample> data, int from) {
+        if (precision == Precision.FLOAT) {
+            if (expectedF.length < rows * nOut) expectedF = new float[rows * nOut];
+            for (int r = 0; r < rows; r++) {
+                double[] y = data.get(from + r).expectedOutputs();
+                for (int j = 0; j < nOut; j++) expectedF[r * nOut + j] = (float) y[j];
+            }
+        } else {
+            if (expected.length < rows * nOut) expected = new double[rows * nOut];
+            for (int r = 0; r < rows; r++) {
+                System.arraycopy(data.get(from + r).expectedOutputs(), 0, expected, r * nOut, nOut);
+            }
+        }
+    }
+
+    /** Builds the CSR lists of the dense inputs; gives up and returns false past budget non‑zeros */
+    private boolean gatherNonZeros(int budget) {
+        if (activeIdx.length < budget) activeIdx = new int[budget];
+        int n = 0;
+        if (precision == Precision.FLOAT) {
+            if (valBufferF.length < budget) valBufferF = new float[budget];
+            for (int r = 0; r < rows; r++) {
+                activeStart[r] = n;
+                for (int i = 0, k = r * nIn; i < nIn; i++, k++) {
+                    if (inputsF[k] == 0f) continue;
+                    if (n == budget) return false;
+                    activeIdx[n] = i;
+                    valBufferF[n++] = inputsF[k];
+                }
+            }
+            activeValF = valBufferF;
+        } else {
+            if (valBuffer.length < budget) valBuffer = new double[budget];
+            for (int r = 0; r < rows; r++) {
+                activeStart[r] = n;
+                for (int i = 0, k = r * nIn; i < nIn; i++, k++) {
+                    if (inputs[k] == 0.0) continue;
+                    if (n == budget) return false;
+                    activeIdx[n] = i;
+                    valBuffer[n++] = inputs[k];
+                }
+            }
+            activeVal = valBuffer;
+        }
+        activeStart[rows] = n;
+        return true;
+    }
+
+    /** Too dense for the CSR path: writes the set inputs of a binary batch out as a 0/1 matrix */
+    private void expandBinary() {
+        if (precision == Precision.FLOAT) {
+            if (inputsF.length < rows * nIn) inputsF = new float[rows * nIn];
+            Arrays.fill(inputsF, 0, rows * nIn, 0f);
+            for (int r = 0; r < rows; r++) {
+                for (int p = activeStart[r]; p < activeStart[r + 1]; p++) inputsF[r * nIn + activeIdx[p]] = 1f;
+            }
+        } else {
+            if (inputs.length < rows * nIn) inputs = new double[rows * nIn];
+            Arrays.fill(inputs, 0, rows * nIn, 0.0);
+            for (int r = 0; r < rows; r++) {
+                for (int p = activeStart[r]; p < activeStart[r + 1]; p++) inputs[r * nIn + activeIdx[p]] = 1.0;
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package de.jakob.data;
+
+import de.jakob.Sample;
+
+/**
+ * A reusable sample slot of the {@link BatchLoader}, filled by the {@link Augmenter} with either an
+ * augmented or a plain copy. It is only valid until its batch is handed back to the loader.
+ * Binary images are kept as bits.
+ */
+public final class AugmentedSample implements Sample {
+
+    private final int length;
+    private final double[] values;
+    private final long[] bits;
+    private boolean binary;
+    private double[] expected;
+
+    public AugmentedSample(int length) {
+        this.length = length;
+        this.values = new double[length];
+        this.bits   = new long[(length + 63) >>> 6];
+    }
+
+    /** Dense pixel buffer, filled by the {@link Augmenter} */
+    double[] values() {
+        return values;
+    }
+
+    /** Packed pixel buffer, lowest bit first, filled by the {@link Augmenter} */
+    long[] bits() {
+        return bits;
+    }
+
+    void set(boolean binary, double[] expected) {
+        this.binary   = binary;
+        this.expected = expected;
+    }
+
+    @Override
+    public double[] inputs() {
+        double[] in = new double[length];
+        copyInputs(in, 0);
+        return in;
+    }
+
+    @Override
+    public double[] expectedOutputs() {
+        return expected;
+    }
+
+    @Override
+    public void copyInputs(double[] dst, int offset) {
+        if (!binary) {
+            System.arraycopy(values, 0, dst, offset, length);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = bits[i >>> 6] >>> i & 1L;
+        }
+    }
+
+    @Override
+    public void copyInputs(float[] dst, int offset) {
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = binary ? bits[i >>> 6] >>> i & 1L : (float) values[i];
+        }
+    }
+
+    @Override
+    public boolean isBinary() {
+        return binary;
+    }
+
+    @Override
+    public int activeInputs(int[] dst, int offset) {
+        if (!binary) return Sample.super.activeInputs(dst, offset);
+        int n = offset;
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                dst[n++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return n - offset;
+    }
+}
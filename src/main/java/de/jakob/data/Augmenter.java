@@ -0,0 +1,116 @@
+package de.jakob.data;
+
+import de.jakob.Sample;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Random shift, horizontal mirror and pixel noise on a square image, applied in one pass from
+ * the source sample into an {@link AugmentedSample}. Not thread safe: every thread needs its own
+ * instance, which owns its generator and scratch buffers and allocates nothing per sample.
+ */
+public final class Augmenter {
+
+    // chance that a pixel is inverted
+    private static final double NOISE = 0.01;
+    private static final double LOG_KEEP = Math.log(1 - NOISE);
+
+    private final int size;
+    private final SplittableRandom random;
+    private final double[] pixels;
+    private final int[] active;
+
+    public Augmenter(int size, SplittableRandom random) {
+        this.size   = size;
+        this.random = random;
+        this.pixels = new double[size * size];
+        this.active = new int[size * size];
+    }
+
+    /** A slot this augmenter can write into */
+    public AugmentedSample newSample() {
+        return new AugmentedSample(size * size);
+    }
+
+    /** True with the given probability, drawn from this augmenter's generator */
+    public boolean chance(double probability) {
+        return random.nextDouble() < probability;
+    }
+
+    /** Writes an augmented copy of src into dst and returns dst */
+    public AugmentedSample augment(Sample src, AugmentedSample dst) {
+        int maxShift = random.nextDouble() < 0.1 ? random.nextBoolean() ? 3 : 2 : 1;
+        int dx = random.nextInt(2 * maxShift + 1) - maxShift;
+        int dy = random.nextInt(2 * maxShift + 1) - maxShift;
+        boolean mirror = random.nextBoolean();
+
+        if (src.isBinary()) {
+            shiftBits(src, dst.bits(), dx, dy, mirror);
+        } else {
+            shiftDense(src, dst.values(), dx, dy, mirror);
+        }
+        dst.set(src.isBinary(), src.expectedOutputs());
+        return dst;
+    }
+
+    /** Writes an unchanged copy of src into dst and returns dst */
+    public AugmentedSample copy(Sample src, AugmentedSample dst) {
+        if (src.isBinary()) {
+            long[] out = dst.bits();
+            Arrays.fill(out, 0L);
+            int n = src.activeInputs(active, 0);
+            for (int p = 0; p < n; p++) {
+                out[active[p] >>> 6] |= 1L << active[p];
+            }
+        } else {
+            src.copyInputs(dst.values(), 0);
+        }
+        dst.set(src.isBinary(), src.expectedOutputs());
+        return dst;
+    }
+
+    /** Moves every set pixel to its target position, so the cost scales with the ink, not the image */
+    private void shiftBits(Sample src, long[] out, int dx, int dy, boolean mirror) {
+        Arrays.fill(out, 0L);
+        int n = src.activeInputs(active, 0);
+        for (int p = 0; p < n; p++) {
+            int i = active[p] / size + dy;
+            int j = active[p] % size + dx;
+            if (i < 0 || i >= size || j < 0 || j >= size) continue;
+            int k = i * size + (mirror ? size - 1 - j : j);
+            out[k >>> 6] |= 1L << k;
+        }
+        for (int k = nextNoise(-1); k < size * size; k = nextNoise(k)) {
+            out[k >>> 6] ^= 1L << k;
+        }
+    }
+
+    /** Pulls every target pixel from its shifted, mirrored source, padding with 0 */
+    private void shiftDense(Sample src, double[] out, int dx, int dy, boolean mirror) {
+        src.copyInputs(pixels, 0);
+        for (int i = 0; i < size; i++) {
+            int si = i - dy, row = i * size;
+            if (si < 0 || si >= size) {
+                Arrays.fill(out, row, row + size, 0.0);
+                continue;
+            }
+            for (int j = 0; j < size; j++) {
+                int sj = (mirror ? size - 1 - j : j) - dx;
+                out[row + j] = sj >= 0 && sj < size ? pixels[si * size + sj] : 0.0;
+            }
+        }
+        for (int k = nextNoise(-1); k < size * size; k = nextNoise(k)) {
+            out[k] = 1.0 - out[k];
+        }
+    }
+
+    /**
+     * The next pixel after k to invert. The gaps between inverted pixels are geometric, so this
+     * draws one number per inverted pixel instead of one per pixel.
+     */
+    private int nextNoise(int k) {
+        double gap = Math.log(1.0 - random.nextDouble()) / LOG_KEEP;
+        return gap >= size * size ? size * size : k + 1 + (int) gap;
+    }
+}
@@ -0,0 +1,267 @@
+package de.jakob.data;
+
+import de.jakob.Sample;
+import de.jakob.metrics.Phase;
+import de.jakob.metrics.TrainingMetrics;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams shuffled, augmented mini‑batches to the training loop. Every epoch shuffles a
+ * permutation of the sample indices, never the data itself. Worker threads cut it into batches
+ * and copy each sample, augmented or not, into a fixed pool of batches. The pool bounds how far
+ * the workers run ahead; they wait when it is empty. So the data may be a memory‑mapped
+ * {@link BinaryDataset} larger than the heap, and it is only read by the workers. Batches come
+ * out in epoch order whatever order they finish in: batch i goes to reorder slot i mod pool size,
+ * which is free again by the time batch i + pool size can be claimed. A worker that fails stops the
+ * epoch; {@link #next} rethrows its exception once it reaches the batch that never came.
+ */
+public class BatchLoader implements Closeable {
+
+    private static final TrainingMetrics METRICS = TrainingMetrics.get();
+
+    /** How often a waiting {@link #next} looks for a failed worker */
+    private static final long FAILURE_CHECK_MILLIS = 50;
+
+    private final List<? extends Sample> data;
+    private final int batchSize;
+    private final double probability;
+    private final int[] order;
+    private final SplittableRandom shuffle;
+    private final Augmenter[] augmenters;
+    private final ExecutorService workers;
+
+    // every batch is either free, being filled, ready in its reorder slot, or held by the consumer
+    private final BlockingQueue<Batch> free;
+    private final List<BlockingQueue<Batch>> slots = new ArrayList<>();
+    private final List<Future<?>> running = new ArrayList<>();
+    private final AtomicInteger cursor = new AtomicInteger();
+    private int batches, delivered;
+    private Batch current;
+    // the first batch a worker failed to fill; batches before it were claimed and still arrive
+    private volatile Throwable failure;
+    private volatile int failedIndex;
+
+    // metrics, written by the consumer
+    private volatile long stallNanos, stalls, taken, depthSum;
+
+    /**
+     * @param size        side length of the square images
+     * @param threads     worker threads
+     * @param depth       how many batches may be prepared ahead of the one training
+     * @param probability chance that a sample is augmented rather than copied as is
+     */
+    public BatchLoader(List<? extends Sample> data, int batchSize, int size, int threads, int depth,
+                       double probability, long seed) {
+        this.data = data;
+        this.batchSize = batchSize;
+        this.probability = probability;
+        this.order = new int[data.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+
+        SplittableRandom root = new SplittableRandom(seed);
+        this.shuffle = root.split();
+        this.augmenters = new Augmenter[threads];
+        for (int p = 0; p < threads; p++) {
+            augmenters[p] = new Augmenter(size, root.split());
+        }
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "batch-loader");
+            t.setDaemon(true);
+            return t;
+        });
+
+        int pooled = depth + 1;
+        free = new ArrayBlockingQueue<>(pooled);
+        for (int b = 0; b < pooled; b++) {
+            free.add(new Batch());
+            slots.add(new ArrayBlockingQueue<>(1));
+        }
+    }
+
+    /** Reshuffles and starts loading a new epoch, abandoning what is left of the previous one */
+    public void startEpoch() {
+        cancel();
+        failure = null;
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = shuffle.nextInt(i + 1);
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+        batches = (order.length + batchSize - 1) / batchSize;
+        delivered = 0;
+        cursor.set(0);
+        for (Augmenter augmenter : augmenters) {
+            running.add(workers.submit(() -> produce(augmenter)));
+        }
+    }
+
+    /**
+     * The next batch of the epoch, or null once all were handed out. The returned list and its
+     * samples are reused after the following call.
+     *
+     * @throws IllegalStateException if a worker failed to fill this batch, with its exception as the cause
+     */
+    public List<Sample> next() throws InterruptedException {
+        if (current != null) {
+            free.put(current);
+            current = null;
+        }
+        if (delivered == batches) return null;
+
+        BlockingQueue<Batch> slot = slots.get(delivered % slots.size());
+        depthSum += getQueueDepth();
+        taken++;
+        current = slot.poll();
+        if (current == null) {
+            long start = System.nanoTime();
+            while ((current = slot.poll(FAILURE_CHECK_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                Throwable cause = failure;
+                if (cause != null && delivered >= failedIndex) {
+                    throw new IllegalStateException("Loading batch " + failedIndex + " failed", cause);
+                }
+            }
+            long waited = System.nanoTime() - start;
+            METRICS.record(Phase.BATCH_WAIT, waited);
+            stallNanos += waited;
+            stalls++;
+        }
+        delivered++;
+        return current.samples;
+    }
+
+    private void produce(Augmenter augmenter) {
+        try {
+            while (true) {
+                Batch batch = free.take();
+                int index = cursor.getAndIncrement();
+                if (index >= batches) {
+                    free.put(batch);
+                    return;
+                }
+                int from = index * batchSize;
+                long start = System.nanoTime();
+                try {
+                    batch.fill(data, order, from, Math.min(from + batchSize, order.length), augmenter, probability);
+                } catch (RuntimeException | Error e) {
+                    // this slot will never fill: stop the epoch and leave the exception to next(); the
+                    // batch goes back last, so nobody claims an index that would land in this slot
+                    fail(index, e);
+                    cursor.set(batches);
+                    free.put(batch);
+                    return;
+                }
+                METRICS.record(Phase.AUGMENT, System.nanoTime() - start);
+                // at most pool size batches are claimed and not yet returned, so the slot is empty
+                slots.get(index % slots.size()).add(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void fail(int index, Throwable e) {
+        if (failure == null || index < failedIndex) {
+            failedIndex = index;
+            failure = e;
+        }
+    }
+
+    /** Stops the workers of the running epoch and takes all batches back into the pool */
+    private void cancel() {
+        cursor.set(batches);
+        if (current != null) {
+            free.add(current);
+            current = null;
+        }
+        try {
+            for (Future<?> f : running) {
+                // a worker may be waiting for a free batch while the pool sits in the reorder slots
+                while (!f.isDone()) {
+                    reclaim();
+                    try {
+                        f.get(1, TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException ignored) {
+                        // still filling or waiting, drain again
+                    }
+                }
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        running.clear();
+        reclaim();
+    }
+
+    private void reclaim() {
+        for (BlockingQueue<Batch> slot : slots) slot.drainTo(free);
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        workers.shutdown();
+    }
+
+    public int getBatchCount() {
+        return (order.length + batchSize - 1) / batchSize;
+    }
+
+    /** Batches prepared and waiting right now */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (BlockingQueue<Batch> slot : slots) depth += slot.size();
+        return depth;
+    }
+
+    /** Average number of prepared batches found waiting when the trainer asked for the next one */
+    public double getAverageQueueDepth() {
+        return taken == 0 ? 0 : (double) depthSum / taken;
+    }
+
+    /** How often the trainer found no batch ready and had to wait */
+    public long getStalls() {
+        return stalls;
+    }
+
+    public double getStallMillis() {
+        return stallNanos / 1e6;
+    }
+
+    /** A pooled batch: the list handed to training plus the slots its samples are copied into. */
+    private static final class Batch {
+        final List<Sample> samples = new ArrayList<>();
+        private AugmentedSample[] slots = new AugmentedSample[0];
+
+        void fill(List<? extends Sample> data, int[] order, int from, int to, Augmenter augmenter, double probability) {
+            int n = to - from;
+            if (slots.length < n) {
+                AugmentedSample[] grown = Arrays.copyOf(slots, n);
+                for (int i = slots.length; i < n; i++) grown[i] = augmenter.newSample();
+                slots = grown;
+            }
+            samples.clear();
+            for (int i = 0; i < n; i++) {
+                Sample dp = data.get(order[from + i]);
+                samples.add(augmenter.chance(probability) ? augmenter.augment(dp, slots[i]) : augmenter.copy(dp, slots[i]));
+            }
+        }
+    }
+}
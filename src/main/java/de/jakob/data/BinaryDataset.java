@@ -0,0 +1,230 @@
+package de.jakob.data;
+
+import de.jakob.OneHot;
+import de.jakob.Sample;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A memory‑mapped doodle dataset. The file is never copied onto the heap; {@link #get(int)}
+ * returns a small view that decodes its pixels straight from the mapping when asked.
+ * <p>
+ * Layout, little‑endian:
+ * <pre>
+ *  0  int   magic "DDLS"
+ *  4  int   version (1)
+ *  8  int   width
+ * 12  int   height
+ * 16  int   classes
+ * 20  int   encoding (0 = one byte per pixel, 1 = one bit per pixel)
+ * 24  long  sample count
+ * 32  records: label byte, then the pixels row by row
+ * </pre>
+ * BYTE pixels hold round(value · 255); BIT pixels are set for values ≥ 0.5, lowest bit first.
+ * Bytes after the counted records, left by a writer killed between two flushes, are ignored.
+ */
+public class BinaryDataset extends AbstractList<Sample> implements RandomAccess {
+
+    public enum Encoding { BYTE, BIT }
+
+    static final int MAGIC = 0x534C4444; // "DDLS" read little‑endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    private final int width, height, classes;
+    private final Encoding encoding;
+    private final int count, recordSize, pixelBytes;
+
+    // split into several mappings when the file is larger than one buffer can address
+    private final MappedByteBuffer[] segments;
+    private final int recordsPerSegment;
+
+    private BinaryDataset(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary doodle dataset");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException("Unsupported dataset version " + header.getInt(4));
+        }
+        width    = header.getInt(8);
+        height   = header.getInt(12);
+        classes  = header.getInt(16);
+        int encodingOrdinal = header.getInt(20);
+        long samples = header.getLong(24);
+        if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE - 1
+                || classes <= 0 || classes > 256
+                || encodingOrdinal < 0 || encodingOrdinal >= Encoding.values().length
+                || samples < 0 || samples > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt dataset header");
+        }
+        encoding = Encoding.values()[encodingOrdinal];
+        count    = (int) samples;
+
+        pixelBytes = pixelBytes(width * height, encoding);
+        recordSize = 1 + pixelBytes;
+        long expectedSize = HEADER_SIZE + (long) count * recordSize;
+        if (channel.size() < expectedSize) {
+            throw new IOException("Dataset is " + channel.size() + " bytes, its header describes " + expectedSize);
+        }
+
+        recordsPerSegment = Math.max(1, Integer.MAX_VALUE / recordSize);
+        int segmentCount = count == 0 ? 0 : (count - 1) / recordsPerSegment + 1;
+        segments = new MappedByteBuffer[segmentCount];
+        for (int s = 0; s < segmentCount; s++) {
+            long first = (long) s * recordsPerSegment;
+            long records = Math.min(recordsPerSegment, count - first);
+            segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * recordSize, records * recordSize);
+            segments[s].order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /** Maps the file; the mapping stays valid after the channel is closed */
+    public static BinaryDataset open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new BinaryDataset(channel);
+        }
+    }
+
+    static int pixelBytes(int pixels, Encoding encoding) {
+        return encoding == Encoding.BIT ? (pixels + 7) / 8 : pixels;
+    }
+
+    @Override
+    public Sample get(int index) {
+        if (index < 0 || index >= count) throw new IndexOutOfBoundsException(index);
+        return new MappedSample(this, index);
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    public int label(int index) {
+        return segment(index).get(offset(index)) & 0xFF;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getClasses() {
+        return classes;
+    }
+
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    private ByteBuffer segment(int index) {
+        return segments[index / recordsPerSegment];
+    }
+
+    private int offset(int index) {
+        return (index % recordsPerSegment) * recordSize;
+    }
+
+    /** Writes the pixels of sample index into dst[off..], scaled to [0, 1] */
+    void decode(int index, double[] dst, int off) {
+        ByteBuffer buf = segment(index);
+        int base = offset(index) + 1, n = width * height;
+        if (encoding == Encoding.BIT) {
+            for (int i = 0; i < n; i++) {
+                dst[off + i] = (buf.get(base + (i >>> 3)) >>> (i & 7) & 1);
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                dst[off + i] = (buf.get(base + i) & 0xFF) / 255.0;
+            }
+        }
+    }
+
+    void decode(int index, float[] dst, int off) {
+        ByteBuffer buf = segment(index);
+        int base = offset(index) + 1, n = width * height;
+        if (encoding == Encoding.BIT) {
+            for (int i = 0; i < n; i++) {
+                dst[off + i] = (buf.get(base + (i >>> 3)) >>> (i & 7) & 1);
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                dst[off + i] = (buf.get(base + i) & 0xFF) / 255f;
+            }
+        }
+    }
+
+    /**
+     * One record of a {@link BinaryDataset}; equal views refer to the same record of the same
+     * opened dataset. Equality compares the dataset by identity: the dataset is a list of these
+     * views, so its own element‑wise equals and hashCode would recurse back into them.
+     */
+    record MappedSample(BinaryDataset dataset, int index) implements Sample {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof MappedSample other && other.dataset == dataset && other.index == index;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(dataset) + index;
+        }
+
+        @Override
+        public double[] inputs() {
+            double[] in = new double[dataset.width * dataset.height];
+            dataset.decode(index, in, 0);
+            return in;
+        }
+
+        @Override
+        public double[] expectedOutputs() {
+            return OneHot.of(dataset.label(index), dataset.classes);
+        }
+
+        @Override
+        public void copyInputs(double[] dst, int offset) {
+            dataset.decode(index, dst, offset);
+        }
+
+        @Override
+        public void copyInputs(float[] dst, int offset) {
+            dataset.decode(index, dst, offset);
+        }
+
+        @Override
+        public boolean isBinary() {
+            return dataset.encoding == Encoding.BIT;
+        }
+
+        @Override
+        public int activeInputs(int[] dst, int offset) {
+            if (!isBinary()) return Sample.super.activeInputs(dst, offset);
+            ByteBuffer buf = dataset.segment(index);
+            int base = dataset.offset(index) + 1, n = offset;
+            for (int b = 0; b < dataset.pixelBytes; b++) {
+                int bits = buf.get(base + b) & 0xFF;
+                while (bits != 0) {
+                    dst[n++] = (b << 3) + Integer.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                }
+            }
+            return n - offset;
+        }
+    }
+}
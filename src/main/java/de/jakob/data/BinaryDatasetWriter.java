@@ -0,0 +1,135 @@
+package de.jakob.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams samples into the {@link BinaryDataset} file format. The header's sample count is brought
+ * up to date on every {@link #flush}, so a run killed after one leaves a readable dataset of the
+ * samples flushed so far.
+ */
+public class BinaryDatasetWriter implements SampleWriter {
+
+    private final FileChannel channel;
+    private final int pixels;
+    private final BinaryDataset.Encoding encoding;
+    private final ByteBuffer record;
+    private long count;
+
+    public BinaryDatasetWriter(Path file, int width, int height, int classes, BinaryDataset.Encoding encoding) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING), width * height, encoding, 0);
+
+        ByteBuffer header = header(width, height, classes, encoding);
+        while (header.hasRemaining()) channel.write(header);
+    }
+
+    private BinaryDatasetWriter(FileChannel channel, int pixels, BinaryDataset.Encoding encoding, long count) {
+        this.channel  = channel;
+        this.pixels   = pixels;
+        this.encoding = encoding;
+        this.record   = ByteBuffer.allocate(1 + BinaryDataset.pixelBytes(pixels, encoding));
+        this.count    = count;
+    }
+
+    /**
+     * Reopens a file written by this class, keeps its first {@code samples} records and appends
+     * after them; anything behind them, like the rest of an interrupted run, is cut off
+     */
+    public static BinaryDatasetWriter append(Path file, int width, int height, int classes,
+                                             BinaryDataset.Encoding encoding, long samples) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer expected = header(width, height, classes, encoding);
+            ByteBuffer actual = ByteBuffer.allocate(BinaryDataset.HEADER_SIZE);
+            channel.read(actual, 0);
+            // everything but the sample count has to match
+            if (!expected.slice(0, 24).equals(actual.flip().slice(0, Math.min(24, actual.limit())))) {
+                throw new IOException("Cannot append to " + file + ": it is not a dataset of the same shape");
+            }
+            long end = BinaryDataset.HEADER_SIZE + samples * (1 + BinaryDataset.pixelBytes(width * height, encoding));
+            if (channel.size() < end) {
+                throw new IOException("Cannot append to " + file + ": it holds fewer than " + samples + " samples");
+            }
+            channel.truncate(end);
+            channel.position(end);
+            return new BinaryDatasetWriter(channel, width * height, encoding, samples);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void write(int label, float[] values) throws IOException {
+        if (values.length != pixels) {
+            throw new IllegalArgumentException("Expected " + pixels + " pixels but got " + values.length);
+        }
+        record.clear();
+        record.put((byte) label);
+        if (encoding == BinaryDataset.Encoding.BIT) {
+            for (int i = 0; i < pixels; i += 8) {
+                int bits = 0;
+                for (int b = 0; b < 8 && i + b < pixels; b++) {
+                    if (values[i + b] >= 0.5f) bits |= 1 << b;
+                }
+                record.put((byte) bits);
+            }
+        } else {
+            for (float v : values) {
+                record.put((byte) Math.round(Math.max(0f, Math.min(1f, v)) * 255f));
+            }
+        }
+        record.flip();
+        while (record.hasRemaining()) channel.write(record);
+        count++;
+    }
+
+    @Override
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public long position() {
+        return BinaryDataset.HEADER_SIZE + count * record.capacity();
+    }
+
+    /** Records go straight to the channel; writes the sample count so far into the header */
+    @Override
+    public void flush() throws IOException {
+        writeCount();
+    }
+
+    /** Fills in the sample count and closes the file */
+    @Override
+    public void close() throws IOException {
+        try {
+            writeCount();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeCount() throws IOException {
+        ByteBuffer c = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(0, count);
+        while (c.hasRemaining()) channel.write(c, 24 + c.position());
+    }
+
+    private static ByteBuffer header(int width, int height, int classes, BinaryDataset.Encoding encoding) {
+        ByteBuffer header = ByteBuffer.allocate(BinaryDataset.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(BinaryDataset.MAGIC)
+              .putInt(BinaryDataset.VERSION)
+              .putInt(width)
+              .putInt(height)
+              .putInt(classes)
+              .putInt(encoding.ordinal())
+              .putLong(0); // patched in flush() and close()
+        header.flip();
+        return header;
+    }
+}
@@ -0,0 +1,86 @@
+package de.jakob.data;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** Writes samples as dataset CSV lines: the one‑hot label, then the pixels. */
+public class CsvDatasetWriter implements SampleWriter {
+
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final BufferedWriter writer;
+    private final int classes;
+    private final StringBuilder line = new StringBuilder();
+    private long count, position;
+
+    public CsvDatasetWriter(Path file, int classes) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING), classes, 0, 0);
+    }
+
+    private CsvDatasetWriter(FileChannel channel, int classes, long count, long position) {
+        this.writer   = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.US_ASCII));
+        this.classes  = classes;
+        this.count    = count;
+        this.position = position;
+    }
+
+    /**
+     * Reopens a CSV written by this class that holds {@code samples} lines in its first
+     * {@code bytes} bytes and appends after them; anything behind them is cut off
+     */
+    public static CsvDatasetWriter append(Path file, int classes, long samples, long bytes) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < bytes) {
+                throw new IOException("Cannot append to " + file + ": it is shorter than " + bytes + " bytes");
+            }
+            channel.truncate(bytes);
+            channel.position(bytes);
+            return new CsvDatasetWriter(channel, classes, samples, bytes);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void write(int label, float[] values) throws IOException {
+        line.setLength(0);
+        for (int c = 0; c < classes; c++) line.append(c == label ? 1 : 0).append(',');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) line.append(',');
+            line.append(values[i]);
+        }
+        line.append(NEWLINE);
+        writer.append(line);
+        position += line.length(); // ASCII only, one byte per char
+        count++;
+    }
+
+    @Override
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
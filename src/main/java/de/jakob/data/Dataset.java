@@ -0,0 +1,175 @@
+package de.jakob.data;
+
+import de.jakob.Sample;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.SplittableRandom;
+
+/**
+ * A loaded dataset and the label of every sample. Training and validation sets are {@link View}s
+ * of it: arrays of indices into the one shared list, so splitting copies no samples.
+ */
+public class Dataset {
+
+    private final List<Sample> samples;
+    private final int[] labels;
+    private final int classes;
+
+    /** Wraps samples without copying them; a {@link BinaryDataset} keeps serving them from its mapping */
+    public Dataset(List<Sample> samples) {
+        this.samples = samples;
+        this.labels  = new int[samples.size()];
+        int classes = 0;
+        if (samples instanceof BinaryDataset mapped) {
+            for (int i = 0; i < labels.length; i++) labels[i] = mapped.label(i);
+            classes = mapped.getClasses();
+        } else {
+            for (int i = 0; i < labels.length; i++) {
+                double[] expected = samples.get(i).expectedOutputs();
+                int label = 0;
+                for (int c = 1; c < expected.length; c++) {
+                    if (expected[c] > expected[label]) label = c;
+                }
+                labels[i] = label;
+                classes = Math.max(classes, expected.length);
+            }
+        }
+        this.classes = classes;
+    }
+
+    /**
+     * The class names preprocessing wrote next to a dataset file, in label order, or null if it
+     * wrote none. They live in {@code <dataset>.labels}, one per line.
+     */
+    public static List<String> readLabels(Path dataset) throws IOException {
+        Path file = labelsFile(dataset);
+        return Files.exists(file) ? Files.readAllLines(file, StandardCharsets.UTF_8) : null;
+    }
+
+    /** Writes the class names of the dataset file for {@link #readLabels} */
+    public static void writeLabels(Path dataset, List<String> names) throws IOException {
+        Files.write(labelsFile(dataset), names, StandardCharsets.UTF_8);
+    }
+
+    private static Path labelsFile(Path dataset) {
+        return Path.of(dataset + ".labels");
+    }
+
+    public int size() {
+        return labels.length;
+    }
+
+    public int getClasses() {
+        return classes;
+    }
+
+    public record Split(View train, View validation) {}
+
+    /**
+     * Picks trainSamples samples for training, the same share of every class, and leaves the rest
+     * for validation. The same seed gives the same split. Each view keeps file order.
+     */
+    public Split split(int trainSamples, long seed) {
+        int n = labels.length;
+        trainSamples = Math.max(0, Math.min(trainSamples, n));
+
+        // counting sort of the indices by class
+        int[] start = new int[classes + 1];
+        for (int label : labels) start[label + 1]++;
+        for (int c = 0; c < classes; c++) start[c + 1] += start[c];
+        int[] byClass = new int[n];
+        int[] fill = start.clone();
+        for (int i = 0; i < n; i++) byClass[fill[labels[i]]++] = i;
+
+        int[] quota = quotas(trainSamples, start);
+
+        // a partial Fisher‑Yates shuffle within each class draws its training samples
+        SplittableRandom random = new SplittableRandom(seed);
+        boolean[] inTrain = new boolean[n];
+        for (int c = 0; c < classes; c++) {
+            int from = start[c], to = start[c + 1];
+            for (int k = 0; k < quota[c]; k++) {
+                int j = random.nextInt(from + k, to);
+                int pick = byClass[j];
+                byClass[j] = byClass[from + k];
+                byClass[from + k] = pick;
+                inTrain[pick] = true;
+            }
+        }
+
+        int[] train = new int[trainSamples], validation = new int[n - trainSamples];
+        int t = 0, v = 0;
+        for (int i = 0; i < n; i++) {
+            if (inTrain[i]) train[t++] = i; else validation[v++] = i;
+        }
+        return new Split(new View(train), new View(validation));
+    }
+
+    /**
+     * Splits amount across the classes whose indices occupy [start[c], start[c + 1]) in proportion to
+     * their size: each gets its share rounded down, the rest go to the largest remainders
+     */
+    static int[] quotas(int amount, int[] start) {
+        int classes = start.length - 1, n = Math.max(start[classes], 1);
+        int[] quota = new int[classes];
+        long[] remainder = new long[classes];
+        int assigned = 0;
+        for (int c = 0; c < classes; c++) {
+            long scaled = (long) amount * (start[c + 1] - start[c]);
+            quota[c] = (int) (scaled / n);
+            remainder[c] = scaled % n;
+            assigned += quota[c];
+        }
+        for (; assigned < amount; assigned++) {
+            int best = -1;
+            for (int c = 0; c < classes; c++) {
+                if (quota[c] < start[c + 1] - start[c] && (best < 0 || remainder[c] > remainder[best])) best = c;
+            }
+            quota[best]++;
+            remainder[best] = -1;
+        }
+        return quota;
+    }
+
+    /** All samples, as a view */
+    public View all() {
+        int[] indices = new int[labels.length];
+        for (int i = 0; i < indices.length; i++) indices[i] = i;
+        return new View(indices);
+    }
+
+    /** A read‑only selection of the dataset's samples */
+    public class View extends AbstractList<Sample> implements RandomAccess {
+
+        private final int[] indices;
+
+        private View(int[] indices) {
+            this.indices = indices;
+        }
+
+        @Override
+        public Sample get(int index) {
+            return samples.get(indices[index]);
+        }
+
+        @Override
+        public int size() {
+            return indices.length;
+        }
+
+        /** The class of the sample at index, without touching the sample */
+        public int label(int index) {
+            return labels[indices[index]];
+        }
+
+        public int getClasses() {
+            return classes;
+        }
+    }
+}
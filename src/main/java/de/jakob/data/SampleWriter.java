@@ -0,0 +1,18 @@
+package de.jakob.data;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+/** Where preprocessing writes samples to: a {@link BinaryDatasetWriter} or a {@link CsvDatasetWriter}. */
+public interface SampleWriter extends Closeable, Flushable {
+
+    /** Appends one sample; pixel values are expected in [0, 1] */
+    void write(int label, float[] values) throws IOException;
+
+    /** Samples in the file so far */
+    long getCount();
+
+    /** Byte offset in the file at which the next sample will start */
+    long position();
+}
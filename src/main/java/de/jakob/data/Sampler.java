@@ -0,0 +1,106 @@
+package de.jakob.data;
+
+import de.jakob.Sample;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.SplittableRandom;
+
+/**
+ * Draws random subsets of a {@link Dataset.View}, like the probes the training loop measures its
+ * cost on. The sampler is itself the list of the last draw: {@link #draw()} refills one index
+ * array in place, so drawing allocates nothing. It owns its random generator and is meant for one
+ * thread; give every thread its own sampler.
+ */
+public class Sampler extends AbstractList<Sample> implements RandomAccess {
+
+    public enum Mode {
+        /** Independent picks, the same sample may come up more than once */
+        WITH_REPLACEMENT,
+        /** Distinct samples */
+        WITHOUT_REPLACEMENT,
+        /** Distinct samples, every class contributing its share of the view */
+        STRATIFIED
+    }
+
+    private final Dataset.View source;
+    private final Mode mode;
+    private final SplittableRandom random;
+    private final int[] picked;
+
+    // positions in source, grouped by class for STRATIFIED; partially shuffled by every draw
+    private final int[] order;
+    private final int[] start, quota;
+
+    public Sampler(Dataset.View source, int amount, Mode mode, long seed) {
+        this.source = source;
+        this.mode   = mode;
+        this.random = new SplittableRandom(seed);
+        int n = source.size();
+        this.picked = new int[mode == Mode.WITH_REPLACEMENT && n > 0 ? amount : Math.min(amount, n)];
+
+        if (mode == Mode.WITH_REPLACEMENT) {
+            order = null;
+            start = quota = null;
+        } else if (mode == Mode.WITHOUT_REPLACEMENT) {
+            order = new int[n];
+            for (int i = 0; i < n; i++) order[i] = i;
+            start = quota = null;
+        } else {
+            int classes = source.getClasses();
+            start = new int[classes + 1];
+            for (int i = 0; i < n; i++) start[source.label(i) + 1]++;
+            for (int c = 0; c < classes; c++) start[c + 1] += start[c];
+            order = new int[n];
+            int[] fill = start.clone();
+            for (int i = 0; i < n; i++) order[fill[source.label(i)]++] = i;
+            quota = Dataset.quotas(picked.length, start);
+        }
+        draw();
+    }
+
+    /** Replaces the contents with a new random draw and returns this */
+    public Sampler draw() {
+        int n = source.size();
+        switch (mode) {
+            case WITH_REPLACEMENT -> {
+                for (int k = 0; k < picked.length; k++) picked[k] = random.nextInt(n);
+            }
+            case WITHOUT_REPLACEMENT -> shuffleInto(0, n, picked.length, 0);
+            case STRATIFIED -> {
+                int k = 0;
+                for (int c = 0; c < quota.length; c++) {
+                    shuffleInto(start[c], start[c + 1], quota[c], k);
+                    k += quota[c];
+                }
+            }
+        }
+        return this;
+    }
+
+    /** A partial Fisher‑Yates shuffle of order[from, to) that copies its first count positions to picked[at..] */
+    private void shuffleInto(int from, int to, int count, int at) {
+        for (int k = 0; k < count; k++) {
+            int j = random.nextInt(from + k, to);
+            int pick = order[j];
+            order[j] = order[from + k];
+            order[from + k] = pick;
+            picked[at + k] = pick;
+        }
+    }
+
+    @Override
+    public Sample get(int index) {
+        return source.get(picked[index]);
+    }
+
+    @Override
+    public int size() {
+        return picked.length;
+    }
+
+    /** The class of the drawn sample at index */
+    public int label(int index) {
+        return source.label(picked[index]);
+    }
+}
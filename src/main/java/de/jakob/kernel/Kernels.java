@@ -0,0 +1,71 @@
+package de.jakob.kernel;
+
+/**
+ * The numeric inner loops of a layer, on flat row‑major matrices.
+ * <p>
+ * {@link #get()} picks the implementation once at startup: {@link VectorKernels} when
+ * {@code jdk.incubator.vector} is available (run with {@code --add-modules jdk.incubator.vector}),
+ * otherwise {@link ScalarKernels}. {@code -Dkernels=scalar} forces the fallback.
+ */
+public interface Kernels {
+
+    /** z[r][j] = b[j] + Σᵢ x[r][i]·w[j][i]  (Z = X·Wᵀ + b) */
+    void forward(double[] x, int rows, int nIn, double[] w, double[] b, int nOut, double[] z);
+
+    /** dx[r][i] = Σⱼ d[r][j]·w[j][i]  (dX = δ·W) */
+    void backward(double[] d, int rows, int nOut, double[] w, int nIn, double[] dx);
+
+    /** gW[j][i] += Σᵣ d[r][j]·x[r][i],  gB[j] += Σᵣ d[r][j]  (∇W += δᵀ·X) */
+    void accumulate(double[] x, double[] d, int rows, int nIn, int nOut, double[] gW, double[] gB);
+
+    /**
+     * SGD with momentum over the first n entries, in one pass that also clears the gradient:
+     * v = mu·v + lr·g, then w -= v, or w -= mu·v + lr·g for Nesterov; g = 0
+     */
+    void momentum(double[] w, double[] v, double[] g, int n, double mu, double lr, boolean nesterov);
+
+    /**
+     * Adam over the first n entries, in one pass that also clears the gradient, g being scaled by
+     * scale first: m = β1·m + (1 − β1)·g, v = β2·v + (1 − β2)·g², w = w·(1 − decay) − step·m / (√v + eps);
+     * g = 0. step carries the learning rate and bias correction, decay the decoupled weight decay of AdamW.
+     */
+    void adam(double[] w, double[] m, double[] v, double[] g, int n, double scale,
+              double beta1, double beta2, double step, double eps, double decay);
+
+    /**
+     * {@link #forward} for sparse inputs in CSR form: the non‑zeros of row r are at columns
+     * idx[start[r] .. start[r+1]) with values val[...], or all 1 when val is null (binary inputs).
+     * Only the weight columns of non‑zero inputs are read.
+     */
+    void forwardSparse(int[] start, int[] idx, double[] val, int rows, int nIn, double[] w, double[] b, int nOut, double[] z);
+
+    /** {@link #accumulate} for CSR inputs as in {@link #forwardSparse}: only the columns of non‑zero inputs are touched */
+    void accumulateSparse(int[] start, int[] idx, double[] val, double[] d, int rows, int nIn, int nOut, double[] gW, double[] gB);
+
+    /** Single‑precision {@link #forward(double[], int, int, double[], double[], int, double[])} */
+    void forward(float[] x, int rows, int nIn, float[] w, float[] b, int nOut, float[] z);
+
+    /** Single‑precision {@link #backward(double[], int, int, double[], int, double[])} */
+    void backward(float[] d, int rows, int nOut, float[] w, int nIn, float[] dx);
+
+    /** Single‑precision {@link #accumulate(double[], double[], int, int, int, double[], double[])} */
+    void accumulate(float[] x, float[] d, int rows, int nIn, int nOut, float[] gW, float[] gB);
+
+    /** Single‑precision {@link #momentum(double[], double[], double[], int, double, double, boolean)} */
+    void momentum(float[] w, float[] v, float[] g, int n, float mu, float lr, boolean nesterov);
+
+    /** Single‑precision {@link #adam(double[], double[], double[], double[], int, double, double, double, double, double, double)} */
+    void adam(float[] w, float[] m, float[] v, float[] g, int n, float scale,
+              float beta1, float beta2, float step, float eps, float decay);
+
+    /** Single‑precision {@link #forwardSparse(int[], int[], double[], int, int, double[], double[], int, double[])} */
+    void forwardSparse(int[] start, int[] idx, float[] val, int rows, int nIn, float[] w, float[] b, int nOut, float[] z);
+
+    /** Single‑precision {@link #accumulateSparse(int[], int[], double[], double[], int, int, int, double[], double[])} */
+    void accumulateSparse(int[] start, int[] idx, float[] val, float[] d, int rows, int nIn, int nOut, float[] gW, float[] gB);
+
+    /** The implementation chosen at startup */
+    static Kernels get() {
+        return SelectedKernels.INSTANCE;
+    }
+}
@@ -0,0 +1,364 @@
+package de.jakob.kernel;
+
+import java.util.Arrays;
+
+/**
+ * Plain Java loops for every {@link Kernels} operation; the fallback when the Vector API is missing.
+ * <p>
+ * All three products walk the weight matrix in column blocks of {@link #BLOCK} so a block of
+ * the activations for the whole batch stays in cache while every weight is loaded once per
+ * batch instead of once per sample.
+ */
+public class ScalarKernels implements Kernels {
+
+    /** Columns per block: 32 rows × 256 doubles ≈ 64 KB of activations, fits in L2 */
+    static final int BLOCK = 256;
+
+    @Override
+    public void forward(double[] x, int rows, int nIn, double[] w, double[] b, int nOut, double[] z) {
+        for (int r = 0; r < rows; r++) {
+            System.arraycopy(b, 0, z, r * nOut, nOut);
+        }
+
+        for (int i0 = 0; i0 < nIn; i0 += BLOCK) {
+            int i1 = Math.min(i0 + BLOCK, nIn);
+            int j = 0;
+            for (; j + 4 <= nOut; j += 4) {
+                int w0 = j * nIn, w1 = w0 + nIn, w2 = w1 + nIn, w3 = w2 + nIn;
+                for (int r = 0; r < rows; r++) {
+                    int xr = r * nIn;
+                    double z0 = 0, z1 = 0, z2 = 0, z3 = 0;
+                    for (int i = i0; i < i1; i++) {
+                        double v = x[xr + i];
+                        z0 += w[w0 + i] * v;
+                        z1 += w[w1 + i] * v;
+                        z2 += w[w2 + i] * v;
+                        z3 += w[w3 + i] * v;
+                    }
+                    int zr = r * nOut + j;
+                    z[zr]     += z0;
+                    z[zr + 1] += z1;
+                    z[zr + 2] += z2;
+                    z[zr + 3] += z3;
+                }
+            }
+            for (; j < nOut; j++) {
+                int wj = j * nIn;
+                for (int r = 0; r < rows; r++) {
+                    int xr = r * nIn;
+                    double s = 0;
+                    for (int i = i0; i < i1; i++) {
+                        s += w[wj + i] * x[xr + i];
+                    }
+                    z[r * nOut + j] += s;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void backward(double[] d, int rows, int nOut, double[] w, int nIn, double[] dx) {
+        Arrays.fill(dx, 0, rows * nIn, 0.0);
+
+        for (int i0 = 0; i0 < nIn; i0 += BLOCK) {
+            int i1 = Math.min(i0 + BLOCK, nIn);
+            for (int j = 0; j < nOut; j++) {
+                int wj = j * nIn;
+                for (int r = 0; r < rows; r++) {
+                    double v = d[r * nOut + j];
+                    if (v == 0.0) continue;
+                    int xr = r * nIn;
+                    for (int i = i0; i < i1; i++) {
+                        dx[xr + i] += v * w[wj + i];
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void accumulate(double[] x, double[] d, int rows, int nIn, int nOut, double[] gW, double[] gB) {
+        for (int r = 0; r < rows; r++) {
+            int dr = r * nOut;
+            for (int j = 0; j < nOut; j++) {
+                gB[j] += d[dr + j];
+            }
+        }
+
+        for (int i0 = 0; i0 < nIn; i0 += BLOCK) {
+            int i1 = Math.min(i0 + BLOCK, nIn);
+            for (int j = 0; j < nOut; j++) {
+                int gj = j * nIn;
+                for (int r = 0; r < rows; r++) {
+                    double v = d[r * nOut + j];
+                    if (v == 0.0) continue; // dead ReLU, nothing to add
+                    int xr = r * nIn;
+                    for (int i = i0; i < i1; i++) {
+                        gW[gj + i] += v * x[xr + i];
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void forwardSparse(int[] start, int[] idx, double[] val, int rows, int nIn, double[] w, double[] b, int nOut, double[] z) {
+        // four rows of w stay in cache while every sample gathers its non‑zero columns from them;
+        // four independent sums per index load keep the gathers from waiting on each other
+        int j = 0;
+        for (; j + 4 <= nOut; j += 4) {
+            int w0 = j * nIn, w1 = w0 + nIn, w2 = w1 + nIn, w3 = w2 + nIn;
+            for (int r = 0; r < rows; r++) {
+                double z0 = b[j], z1 = b[j + 1], z2 = b[j + 2], z3 = b[j + 3];
+                int p = start[r], end = start[r + 1];
+                if (val == null) {
+                    for (; p < end; p++) {
+                        int i = idx[p];
+                        z0 += w[w0 + i];
+                        z1 += w[w1 + i];
+                        z2 += w[w2 + i];
+                        z3 += w[w3 + i];
+                    }
+                } else {
+                    for (; p < end; p++) {
+                        int i = idx[p];
+                        double v = val[p];
+                        z0 += w[w0 + i] * v;
+                        z1 += w[w1 + i] * v;
+                        z2 += w[w2 + i] * v;
+                        z3 += w[w3 + i] * v;
+                    }
+                }
+                int zr = r * nOut + j;
+                z[zr]     = z0;
+                z[zr + 1] = z1;
+                z[zr + 2] = z2;
+                z[zr + 3] = z3;
+            }
+        }
+        for (; j < nOut; j++) {
+            int wj = j * nIn;
+            for (int r = 0; r < rows; r++) {
+                double s = b[j];
+                for (int p = start[r], end = start[r + 1]; p < end; p++) {
+                    s += val == null ? w[wj + idx[p]] : w[wj + idx[p]] * val[p];
+                }
+                z[r * nOut + j] = s;
+            }
+        }
+    }
+
+    @Override
+    public void accumulateSparse(int[] start, int[] idx, double[] val, double[] d, int rows, int nIn, int nOut, double[] gW, double[] gB) {
+        for (int j = 0; j < nOut; j++) {
+            int gj = j * nIn;
+            for (int r = 0; r < rows; r++) {
+                double v = d[r * nOut + j];
+                if (v == 0.0) continue; // dead ReLU, nothing to add
+                gB[j] += v;
+                int p = start[r], end = start[r + 1];
+                if (val == null) {
+                    for (; p < end; p++) gW[gj + idx[p]] += v;
+                } else {
+                    for (; p < end; p++) gW[gj + idx[p]] += v * val[p];
+                }
+            }
+        }
+    }
+
+    @Override
+    public void forward(float[] x, int rows, int nIn, float[] w, float[] b, int nOut, float[] z) {
+        for (int r = 0; r < rows; r++) {
+            System.arraycopy(b, 0, z, r * nOut, nOut);
+        }
+
+        for (int i0 = 0; i0 < nIn; i0 += BLOCK) {
+            int i1 = Math.min(i0 + BLOCK, nIn);
+            int j = 0;
+            for (; j + 4 <= nOut; j += 4) {
+                int w0 = j * nIn, w1 = w0 + nIn, w2 = w1 + nIn, w3 = w2 + nIn;
+                for (int r = 0; r < rows; r++) {
+                    int xr = r * nIn;
+                    float z0 = 0, z1 = 0, z2 = 0, z3 = 0;
+                    for (int i = i0; i < i1; i++) {
+                        float v = x[xr + i];
+                        z0 += w[w0 + i] * v;
+                        z1 += w[w1 + i] * v;
+                        z2 += w[w2 + i] * v;
+                        z3 += w[w3 + i] * v;
+                    }
+                    int zr = r * nOut + j;
+                    z[zr]     += z0;
+                    z[zr + 1] += z1;
+                    z[zr + 2] += z2;
+                    z[zr + 3] += z3;
+                }
+            }
+            for (; j < nOut; j++) {
+                int wj = j * nIn;
+                for (int r = 0; r < rows; r++) {
+                    int xr = r * nIn;
+                    float s = 0;
+                    for (int i = i0; i < i1; i++) {
+                        s += w[wj + i] * x[xr + i];
+                    }
+                    z[r * nOut + j] += s;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void backward(float[] d, int rows, int nOut, float[] w, int nIn, float[] dx) {
+        Arrays.fill(dx, 0, rows * nIn, 0f);
+
+        for (int i0 = 0; i0 < nIn; i0 += BLOCK) {
+            int i1 = Math.min(i0 + BLOCK, nIn);
+            for (int j = 0; j < nOut; j++) {
+                int wj = j * nIn;
+                for (int r = 0; r < rows; r++) {
+                    float v = d[r * nOut + j];
+                    if (v == 0f) continue;
+                    int xr = r * nIn;
+                    for (int i = i0; i < i1; i++) {
+                        dx[xr + i] += v * w[wj + i];
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void accumulate(float[] x, float[] d, int rows, int nIn, int nOut, float[] gW, float[] gB) {
+        for (int r = 0; r < rows; r++) {
+            int dr = r * nOut;
+            for (int j = 0; j < nOut; j++) {
+                gB[j] += d[dr + j];
+            }
+        }
+
+        for (int i0 = 0; i0 < nIn; i0 += BLOCK) {
+            int i1 = Math.min(i0 + BLOCK, nIn);
+            for (int j = 0; j < nOut; j++) {
+                int gj = j * nIn;
+                for (int r = 0; r < rows; r++) {
+                    float v = d[r * nOut + j];
+                    if (v == 0f) continue; // dead ReLU, nothing to add
+                    int xr = r * nIn;
+                    for (int i = i0; i < i1; i++) {
+                        gW[gj + i] += v * x[xr + i];
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void momentum(double[] w, double[] v, double[] g, int n, double mu, double lr, boolean nesterov) {
+        for (int k = 0; k < n; k++) {
+            double step = lr * g[k];
+            v[k] = mu * v[k] + step;
+            w[k] -= nesterov ? mu * v[k] + step : v[k];
+            g[k] = 0.0;
+        }
+    }
+
+    @Override
+    public void adam(double[] w, double[] m, double[] v, double[] g, int n, double scale,
+                     double beta1, double beta2, double step, double eps, double decay) {
+        double c1 = (1 - beta1) * scale, c2 = (1 - beta2) * scale * scale, keep = 1 - decay;
+        for (int k = 0; k < n; k++) {
+            double gk = g[k];
+            m[k] = beta1 * m[k] + c1 * gk;
+            v[k] = beta2 * v[k] + c2 * gk * gk;
+            w[k] = keep * w[k] - step * m[k] / (Math.sqrt(v[k]) + eps);
+            g[k] = 0.0;
+        }
+    }
+
+    @Override
+    public void momentum(float[] w, float[] v, float[] g, int n, float mu, float lr, boolean nesterov) {
+        for (int k = 0; k < n; k++) {
+            float step = lr * g[k];
+            v[k] = mu * v[k] + step;
+            w[k] -= nesterov ? mu * v[k] + step : v[k];
+            g[k] = 0f;
+        }
+    }
+
+    @Override
+    public void adam(float[] w, float[] m, float[] v, float[] g, int n, float scale,
+                     float beta1, float beta2, float step, float eps, float decay) {
+        float c1 = (1 - beta1) * scale, c2 = (1 - beta2) * scale * scale, keep = 1 - decay;
+        for (int k = 0; k < n; k++) {
+            float gk = g[k];
+            m[k] = beta1 * m[k] + c1 * gk;
+            v[k] = beta2 * v[k] + c2 * gk * gk;
+            w[k] = keep * w[k] - step * m[k] / ((float) Math.sqrt(v[k]) + eps);
+            g[k] = 0f;
+        }
+    }
+
+    @Override
+    public void forwardSparse(int[] start, int[] idx, float[] val, int rows, int nIn, float[] w, float[] b, int nOut, float[] z) {
+        int j = 0;
+        for (; j + 4 <= nOut; j += 4) {
+            int w0 = j * nIn, w1 = w0 + nIn, w2 = w1 + nIn, w3 = w2 + nIn;
+            for (int r = 0; r < rows; r++) {
+                float z0 = b[j], z1 = b[j + 1], z2 = b[j + 2], z3 = b[j + 3];
+                int p = start[r], end = start[r + 1];
+                if (val == null) {
+                    for (; p < end; p++) {
+                        int i = idx[p];
+                        z0 += w[w0 + i];
+                        z1 += w[w1 + i];
+                        z2 += w[w2 + i];
+                        z3 += w[w3 + i];
+                    }
+                } else {
+                    for (; p < end; p++) {
+                        int i = idx[p];
+                        float v = val[p];
+                        z0 += w[w0 + i] * v;
+                        z1 += w[w1 + i] * v;
+                        z2 += w[w2 + i] * v;
+                        z3 += w[w3 + i] * v;
+                    }
+                }
+                int zr = r * nOut + j;
+                z[zr]     = z0;
+                z[zr + 1] = z1;
+                z[zr + 2] = z2;
+                z[zr + 3] = z3;
+            }
+        }
+        for (; j < nOut; j++) {
+            int wj = j * nIn;
+            for (int r = 0; r < rows; r++) {
+                float s = b[j];
+                for (int p = start[r], end = start[r + 1]; p < end; p++) {
+                    s += val == null ? w[wj + idx[p]] : w[wj + idx[p]] * val[p];
+                }
+                z[r * nOut + j] = s;
+            }
+        }
+    }
+
+    @Override
+    public void accumulateSparse(int[] start, int[] idx, float[] val, float[] d, int rows, int nIn, int nOut, float[] gW, float[] gB) {
+        for (int j = 0; j < nOut; j++) {
+            int gj = j * nIn;
+            for (int r = 0; r < rows; r++) {
+                float v = d[r * nOut + j];
+                if (v == 0f) continue; // dead ReLU, nothing to add
+                gB[j] += v;
+                int p = start[r], end = start[r + 1];
+                if (val == null) {
+                    for (; p < end; p++) gW[gj + idx[p]] += v;
+                } else {
+                    for (; p < end; p++) gW[gj + idx[p]] += v * val[p];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package de.jakob.kernel;
+
+/** Holds the {@link Kernels} picked on first use, see {@link Kernels#get()}. */
+final class SelectedKernels {
+    static final Kernels INSTANCE = select();
+
+    private SelectedKernels() {}
+
+    private static Kernels select() {
+        if ("scalar".equalsIgnoreCase(System.getProperty("kernels"))) {
+            return new ScalarKernels();
+        }
+        try {
+            // loaded reflectively: linking VectorKernels fails when the incubator module is absent
+            return (Kernels) Class.forName("de.jakob.kernel.VectorKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException e) {
+            return new ScalarKernels();
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package de.jakob.kernel;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * {@link Kernels} on the JDK Vector API ({@code jdk.incubator.vector}).
+ * <p>
+ * Same blocking as {@link ScalarKernels}; the inner loops run a full SIMD register of
+ * weights per step with fused multiply‑add, and scalar code only handles the tail of each block.
+ */
+public class VectorKernels extends ScalarKernels {
+
+    private static final VectorSpecies<Double> D = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float>  F = FloatVector.SPECIES_PREFERRED;
+
+    public VectorKernels() {
+        if (D.length() < 2) {
+            throw new UnsupportedOperationException("no SIMD registers wider than one double");
+        }
+    }
+
+    @Override
+    public void forward(double[] x, int rows, int nIn, double[] w, double[] b, int nOut, double[] z) {
+        for (int r = 0; r < rows; r++) {
+            System.arraycopy(b, 0, z, r * nOut, nOut);
+        }
+
+        for (int i0 = 0; i0 < nIn; i0 += BLOCK) {
+            int i1 = Math.min(i0 + BLOCK, nIn);
+            int bound = i0 + D.loopBound(i1 - i0);
+            int j = 0;
+            for (; j + 4 <= nOut; j += 4) {
+                int w0 = j * nIn, w1 = w0 + nIn, w2 = w1 + nIn, w3 = w2 + nIn;
+                for (int r = 0; r < rows; r++) {
+                    int xr = r * nIn;
+                    DoubleVector a0 = DoubleVector.zero(D), a1 = a0, a2 = a0, a3 = a0;
+                    int i = i0;
+                    for (; i < bound; i += D.length()) {
+                        DoubleVector v = DoubleVector.fromArray(D, x, xr + i);
+                        a0 = DoubleVector.fromArray(D, w, w0 + i).fma(v, a0);
+                        a1 = DoubleVector.fromArray(D, w, w1 + i).fma(v, a1);
+                        a2 = DoubleVector.fromArray(D, w, w2 + i).fma(v, a2);
+                        a3 = DoubleVector.fromArray(D, w, w3 + i).fma(v, a3);
+                    }
+                    double z0 = a0.reduceLanes(VectorOperators.ADD), z1 = a1.reduceLanes(VectorOperators.ADD);
+                    double z2 = a2.reduceLanes(VectorOperators.ADD), z3 = a3.reduceLanes(VectorOperators.ADD);
+                    for (; i < i1; i++) {
+                        double v = x[xr + i];
+                        z0 += w[w0 + i] * v;
+                        z1 += w[w1 + i] * v;
+                        z2 += w[w2 + i] * v;
+                        z3 += w[w3 + i] * v;
+                    }
+                    int zr = r * nOut + j;
+                    z[zr]     += z0;
+                    z[zr + 1] += z1;
+                    z[zr + 2] += z2;
+                    z[zr + 3] += z3;
+                }
+            }
+            for (; j < nOut; j++) {
+                int wj = j * nIn;
+                for (int r = 0; r < rows; r++) {
+                    int xr = r * nIn;
+                    DoubleVector a = DoubleVector.zero(D);
+                    int i = i0;
+                    for (; i < bound; i += D.length()) {
+                        a = DoubleVector.fromArray(D, w, wj + i).fma(DoubleVector.fromArray(D, x, xr + i), a);
+                    }
+                    double s = a.reduceLanes(VectorOperators.ADD);
+                    for (; i < i1; i++) {
+                        s += w[wj + i] * x[xr + i];
+                    }
+                    z[r * nOut + j] += s;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void backward(double[] d, int rows, int nOut, double[] w, int nIn, double[] dx) {
+        Arrays.fill(dx, 0, rows * nIn, 0.0);
+
+        for (int i0 = 0; i0 < nIn; i0 += BLOCK) {
+            int i1 = Math.min(i0 + BLOCK, nIn);
+            for (int j = 0; j < nOut; j++) {
+                int wj = j * nIn;
+                for (int r = 0; r < rows; r++) {
+                    double v = d[r * nOut + j];
+                    if (v == 0.0) continue;
+                    axpy(v, w, wj, dx, r * nIn, i0, i1);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void accumulate(double[] x, double[] d, int rows, int nIn, int nOut, double[] gW, double[] gB) {
+        for (int r = 0; r < rows; r++) {
+            int dr = r * nOut;
+            for (int j = 0; j < nOut; j++) {
+                gB[j] += d[dr + j];
+            }
+        }
+
+        for (int i0 = 0; i0 < nIn; i0 += BLOCK) {
+            int i1 = Math.min(i0 + BLOCK, nIn);
+            for (int j = 0; j < nOut; j++) {
+                int gj = j * nIn;
+                for (int r = 0; r < rows; r++) {
+                    double v = d[r * nOut + j];
+                    if (v == 0.0) continue; // dead ReLU, nothing to add
+                    axpy(v, x, r * nIn, gW, gj, i0, i1);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void momentum(double[] w, double[] v, double[] g, int n, double mu, double lr, boolean nesterov) {
+        DoubleVector zero = DoubleVector.zero(D), muv = DoubleVector.broadcast(D, mu);
+        int k = 0;
+        for (int bound = D.loopBound(n); k < bound; k += D.length()) {
+            DoubleVector step = DoubleVector.fromArray(D, g, k).mul(lr);
+            DoubleVector vel = DoubleVector.fromArray(D, v, k).fma(muv, step);
+            vel.intoArray(v, k);
+            DoubleVector update = nesterov ? vel.fma(muv, step) : vel;
+            DoubleVector.fromArray(D, w, k).sub(update).intoArray(w, k);
+            zero.intoArray(g, k);
+        }
+        for (; k < n; k++) {
+            double step = lr * g[k];
+            v[k] = mu * v[k] + step;
+            w[k] -= nesterov ? mu * v[k] + step : v[k];
+            g[k] = 0.0;
+        }
+    }
+
+    @Override
+    public void adam(double[] w, double[] m, double[] v, double[] g, int n, double scale,
+                     double beta1, double beta2, double step, double eps, double decay) {
+        double c1 = (1 - beta1) * scale, c2 = (1 - beta2) * scale * scale, keep = 1 - decay;
+        DoubleVector zero = DoubleVector.zero(D);
+        int k = 0;
+        for (int bound = D.loopBound(n); k < bound; k += D.length()) {
+            DoubleVector gk = DoubleVector.fromArray(D, g, k);
+            DoubleVector mk = DoubleVector.fromArray(D, m, k).mul(beta1).add(gk.mul(c1));
+            DoubleVector vk = DoubleVector.fromArray(D, v, k).mul(beta2).add(gk.mul(gk).mul(c2));
+            mk.intoArray(m, k);
+            vk.intoArray(v, k);
+            DoubleVector update = mk.mul(step).div(vk.sqrt().add(eps));
+            DoubleVector.fromArray(D, w, k).mul(keep).sub(update).intoArray(w, k);
+            zero.intoArray(g, k);
+        }
+        for (; k < n; k++) {
+            double gk = g[k];
+            m[k] = beta1 * m[k] + c1 * gk;
+            v[k] = beta2 * v[k] + c2 * gk * gk;
+            w[k] = keep * w[k] - step * m[k] / (Math.sqrt(v[k]) + eps);
+            g[k] = 0.0;
+        }
+    }
+
+    /** y[yOff + i] += a · x[xOff + i] for i in [from, to) */
+    private static void axpy(double a, double[] x, int xOff, double[] y, int yOff, int from, int to) {
+        DoubleVector av = DoubleVector.broadcast(D, a);
+        int i = from;
+        for (int bound = from + D.loopBound(to - from); i < bound; i += D.length()) {
+            DoubleVector.fromArray(D, x, xOff + i).fma(av, DoubleVector.fromArray(D, y, yOff + i)).intoArray(y, yOff + i);
+        }
+        for (; i < to; i++) {
+            y[yOff + i] += a * x[xOff + i];
+        }
+    }
+
+    @Override
+    public void forward(float[] x, int rows, int nIn, float[] w, float[] b, int nOut, float[] z) {
+        for (int r = 0; r < rows; r++) {
+            System.arraycopy(b, 0, z, r * nOut, nOut);
+        }
+
+        for (int i0 = 0; i0 < nIn; i0 += BLOCK) {
+            int i1 = Math.min(i0 + BLOCK, nIn);
+            int bound = i0 + F.loopBound(i1 - i0);
+            int j = 0;
+            for (; j + 4 <= nOut; j += 4) {
+                int w0 = j * nIn, w1 = w0 + nIn, w2 = w1 + nIn, w3 = w2 + nIn;
+                for (int r = 0; r < rows; r++) {
+                    int xr = r * nIn;
+                    FloatVector a0 = FloatVector.zero(F), a1 = a0, a2 = a0, a3 = a0;
+                    int i = i0;
+                    for (; i < bound; i += F.length()) {
+                        FloatVector v = FloatVector.fromArray(F, x, xr + i);
+                        a0 = FloatVector.fromArray(F, w, w0 + i).fma(v, a0);
+                        a1 = FloatVector.fromArray(F, w, w1 + i).fma(v, a1);
+                        a2 = FloatVector.fromArray(F, w, w2 + i).fma(v, a2);
+                        a3 = FloatVector.fromArray(F, w, w3 + i).fma(v, a3);
+                    }
+                    float z0 = a0.reduceLanes(VectorOperators.ADD), z1 = a1.reduceLanes(VectorOperators.ADD);
+                    float z2 = a2.reduceLanes(VectorOperators.ADD), z3 = a3.reduceLanes(VectorOperators.ADD);
+                    for (; i < i1; i++) {
+                        float v = x[xr + i];
+                        z0 += w[w0 + i] * v;
+                        z1 += w[w1 + i] * v;
+                        z2 += w[w2 + i] * v;
+                        z3 += w[w3 + i] * v;
+                    }
+                    int zr = r * nOut + j;
+                    z[zr]     += z0;
+                    z[zr + 1] += z1;
+                    z[zr + 2] += z2;
+                    z[zr + 3] += z3;
+                }
+            }
+            for (; j < nOut; j++) {
+                int wj = j * nIn;
+                for (int r = 0; r < rows; r++) {
+                    int xr = r * nIn;
+                    FloatVector a = FloatVector.zero(F);
+                    int i = i0;
+                    for (; i < bound; i += F.length()) {
+                        a = FloatVector.fromArray(F, w, wj + i).fma(FloatVector.fromArray(F, x, xr + i), a);
+                    }
+                    float s = a.reduceLanes(VectorOperators.ADD);
+                    for (; i < i1; i++) {
+                        s += w[wj + i] * x[xr + i];
+                    }
+                    z[r * nOut + j] += s;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void backward(float[] d, int rows, int nOut, float[] w, int nIn, float[] dx) {
+        Arrays.fill(dx, 0, rows * nIn, 0f);
+
+        for (int i0 = 0; i0 < nIn; i0 += BLOCK) {
+            int i1 = Math.min(i0 + BLOCK, nIn);
+            for (int j = 0; j < nOut; j++) {
+                int wj = j * nIn;
+                for (int r = 0; r < rows; r++) {
+                    float v = d[r * nOut + j];
+                    if (v == 0f) continue;
+                    axpy(v, w, wj, dx, r * nIn, i0, i1);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void accumulate(float[] x, float[] d, int rows, int nIn, int nOut, float[] gW, float[] gB) {
+        for (int r = 0; r < rows; r++) {
+            int dr = r * nOut;
+            for (int j = 0; j < nOut; j++) {
+                gB[j] += d[dr + j];
+            }
+        }
+
+        for (int i0 = 0; i0 < nIn; i0 += BLOCK) {
+            int i1 = Math.min(i0 + BLOCK, nIn);
+            for (int j = 0; j < nOut; j++) {
+                int gj = j * nIn;
+                for (int r = 0; r < rows; r++) {
+                    float v = d[r * nOut + j];
+                    if (v == 0f) continue; // dead ReLU, nothing to add
+                    axpy(v, x, r * nIn, gW, gj, i0, i1);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void momentum(float[] w, float[] v, float[] g, int n, float mu, float lr, boolean nesterov) {
+        FloatVector zero = FloatVector.zero(F), muv = FloatVector.broadcast(F, mu);
+        int k = 0;
+        for (int bound = F.loopBound(n); k < bound; k += F.length()) {
+            FloatVector step = FloatVector.fromArray(F, g, k).mul(lr);
+            FloatVector vel = FloatVector.fromArray(F, v, k).fma(muv, step);
+            vel.intoArray(v, k);
+            FloatVector update = nesterov ? vel.fma(muv, step) : vel;
+            FloatVector.fromArray(F, w, k).sub(update).intoArray(w, k);
+            zero.intoArray(g, k);
+        }
+        for (; k < n; k++) {
+            float step = lr * g[k];
+            v[k] = mu * v[k] + step;
+            w[k] -= nesterov ? mu * v[k] + step : v[k];
+            g[k] = 0f;
+        }
+    }
+
+    @Override
+    public void adam(float[] w, float[] m, float[] v, float[] g, int n, float scale,
+                     float beta1, float beta2, float step, float eps, float decay) {
+        float c1 = (1 - beta1) * scale, c2 = (1 - beta2) * scale * scale, keep = 1 - decay;
+        FloatVector zero = FloatVector.zero(F);
+        int k = 0;
+        for (int bound = F.loopBound(n); k < bound; k += F.length()) {
+            FloatVector gk = FloatVector.fromArray(F, g, k);
+            FloatVector mk = FloatVector.fromArray(F, m, k).mul(beta1).add(gk.mul(c1));
+            FloatVector vk = FloatVector.fromArray(F, v, k).mul(beta2).add(gk.mul(gk).mul(c2));
+            mk.intoArray(m, k);
+            vk.intoArray(v, k);
+            FloatVector update = mk.mul(step).div(vk.sqrt().add(eps));
+            FloatVector.fromArray(F, w, k).mul(keep).sub(update).intoArray(w, k);
+            zero.intoArray(g, k);
+        }
+        for (; k < n; k++) {
+            float gk = g[k];
+            m[k] = beta1 * m[k] + c1 * gk;
+            v[k] = beta2 * v[k] + c2 * gk * gk;
+            w[k] = keep * w[k] - step * m[k] / ((float) Math.sqrt(v[k]) + eps);
+            g[k] = 0f;
+        }
+    }
+
+    /** y[yOff + i] += a · x[xOff + i] for i in [from, to) */
+    private static void axpy(float a, float[] x, int xOff, float[] y, int yOff, int from, int to) {
+        FloatVector av = FloatVector.broadcast(F, a);
+        int i = from;
+        for (int bound = from + F.loopBound(to - from); i < bound; i += F.length()) {
+            FloatVector.fromArray(F, x, xOff + i).fma(av, FloatVector.fromArray(F, y, yOff + i)).intoArray(y, yOff + i);
+        }
+        for (; i < to; i++) {
+            y[yOff + i] += a * x[xOff + i];
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package de.jakob.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Durations in power‑of‑two nanosecond buckets: bucket i counts [2^i, 2^(i+1)) ns, so percentiles
+ * are exact to within a factor of two. {@link #record} is a few atomic adds, allocates nothing and
+ * may be called from any thread. {@link #roll} closes a reporting interval.
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong(), sum = new AtomicLong(), max = new AtomicLong();
+
+    // state at the end of the previous interval, and what the interval measured; only roll() writes them
+    private final long[] previous = new long[BUCKETS];
+    private long previousSum;
+    private volatile long intervalCount;
+    private volatile double intervalMean, intervalP50, intervalP99;
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(nanos | 1));
+        count.incrementAndGet();
+        sum.addAndGet(nanos);
+        long m;
+        while (nanos > (m = max.get()) && !max.compareAndSet(m, nanos)) {
+            // lost to a concurrent record, try again against its maximum
+        }
+    }
+
+    /** Computes the interval statistics from what was recorded since the previous call */
+    synchronized void roll() {
+        long[] delta = new long[BUCKETS];
+        long n = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            long now = buckets.get(b);
+            delta[b] = now - previous[b];
+            previous[b] = now;
+            n += delta[b];
+        }
+        long total = sum.get();
+        intervalMean  = n == 0 ? 0 : (double) (total - previousSum) / n / 1e6;
+        intervalP50   = percentile(delta, n, 0.50);
+        intervalP99   = percentile(delta, n, 0.99);
+        intervalCount = n;
+        previousSum   = total;
+    }
+
+    /** Milliseconds at the middle of the bucket the p‑th fraction of the n durations falls into */
+    private static double percentile(long[] delta, long n, double p) {
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(p * n), seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += delta[b];
+            if (seen >= rank) return 1.5 * Math.pow(2, b) / 1e6;
+        }
+        return 0;
+    }
+
+    @Override
+    public long getCount() {
+        return count.get();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n / 1e6;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return max.get() / 1e6;
+    }
+
+    @Override
+    public long getIntervalCount() {
+        return intervalCount;
+    }
+
+    @Override
+    public double getIntervalMeanMillis() {
+        return intervalMean;
+    }
+
+    @Override
+    public double getIntervalP50Millis() {
+        return intervalP50;
+    }
+
+    @Override
+    public double getIntervalP99Millis() {
+        return intervalP99;
+    }
+}
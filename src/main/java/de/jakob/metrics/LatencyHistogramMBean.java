@@ -0,0 +1,19 @@
+package de.jakob.metrics;
+
+/** The JMX view of a {@link LatencyHistogram}; interval values cover the last reporting interval. */
+public interface LatencyHistogramMBean {
+
+    long getCount();
+
+    double getMeanMillis();
+
+    double getMaxMillis();
+
+    long getIntervalCount();
+
+    double getIntervalMeanMillis();
+
+    double getIntervalP50Millis();
+
+    double getIntervalP99Millis();
+}
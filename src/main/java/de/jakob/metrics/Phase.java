@@ -0,0 +1,28 @@
+package de.jakob.metrics;
+
+/** The parts of training whose durations {@link TrainingMetrics} records. */
+public enum Phase {
+    /** Loading a chunk of the batch into a workspace and running it forward, on each worker */
+    FORWARD,
+    /** Back‑propagating that chunk into the gradients, on each worker */
+    BACKWARD,
+    /** Summing the workers' gradients into the layers */
+    REDUCE,
+    /** The optimizer step over all layers */
+    APPLY,
+    /** Waiting for the batch loader because no batch was ready: one record per stall */
+    BATCH_WAIT,
+    /** A loader thread filling one batch: copying and augmenting its samples */
+    AUGMENT,
+    /** One {@code NeuralNetwork.evaluate} call */
+    EVALUATE,
+    /** Copying the network into a checkpoint, on the training thread */
+    CHECKPOINT_SNAPSHOT,
+    /** Writing a checkpoint to disk, on the writer thread */
+    CHECKPOINT_WRITE;
+
+    /** The name in log lines and MBean names, e.g. checkpoint_write */
+    public String key() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,216 @@
+package de.jakob.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process‑wide training telemetry: a {@link LatencyHistogram} per {@link Phase}, step and sample
+ * counters, and allocation and GC figures taken from the platform MXBeans. Recording is a few
+ * atomic adds and allocates nothing, so it sits on the hot path of every step. {@link #start}
+ * exports everything as MBeans under {@code de.jakob:type=Training} and, every interval, closes
+ * the interval and prints one {@code key=value} line.
+ */
+public final class TrainingMetrics implements TrainingMetricsMBean {
+
+    private static final TrainingMetrics INSTANCE = new TrainingMetrics();
+
+    private final LatencyHistogram[] byOrdinal = new LatencyHistogram[Phase.values().length];
+    private final AtomicLong steps = new AtomicLong(), samples = new AtomicLong();
+
+    // interval state, only written by roll()
+    private final long startNanos = System.nanoTime();
+    private long lastRollNanos = startNanos, lastSamples, lastAllocated = -1, lastGcCount, lastGcMillis;
+    private volatile boolean rolled;
+    private volatile double samplesPerSecond, allocatedPerSecond;
+
+    // allocation as last seen per live thread, and the last counts of the threads that ended since
+    private Map<Long, Long> threadAllocated = new HashMap<>();
+    private long retiredAllocated;
+
+    private ScheduledExecutorService reporter;
+
+    private TrainingMetrics() {
+        for (Phase phase : Phase.values()) {
+            byOrdinal[phase.ordinal()] = new LatencyHistogram();
+        }
+    }
+
+    public static TrainingMetrics get() {
+        return INSTANCE;
+    }
+
+    /** Records that phase took nanos; safe from any thread */
+    public void record(Phase phase, long nanos) {
+        byOrdinal[phase.ordinal()].record(nanos);
+    }
+
+    /** Records one optimizer step over a batch of the given size */
+    public void step(int batchSize) {
+        steps.incrementAndGet();
+        samples.addAndGet(batchSize);
+    }
+
+    public LatencyHistogram histogram(Phase phase) {
+        return byOrdinal[phase.ordinal()];
+    }
+
+    /**
+     * Registers the MBeans and, for a positive interval, prints a metrics line every that many
+     * seconds; without one, rates are averages since startup. Later calls do nothing.
+     */
+    public synchronized void start(long intervalSeconds) {
+        if (reporter != null) return;
+        lastAllocated = allocatedBytes();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, new ObjectName("de.jakob:type=Training"));
+            for (Phase phase : Phase.values()) {
+                server.registerMBean(histogram(phase), new ObjectName("de.jakob:type=Training,phase=" + phase.key()));
+            }
+        } catch (JMException e) {
+            System.out.println("Could not register training MBeans: " + e.getMessage());
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-reporter");
+            t.setDaemon(true);
+            return t;
+        });
+        if (intervalSeconds > 0) {
+            reporter.scheduleAtFixedRate(() -> System.out.println(roll()), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /** Closes the current interval and returns its metrics line */
+    public synchronized String roll() {
+        long now = System.nanoTime(), total = samples.get();
+        double seconds = (now - lastRollNanos) / 1e9;
+        samplesPerSecond = seconds > 0 ? (total - lastSamples) / seconds : 0;
+
+        long allocated = allocatedBytes();
+        allocatedPerSecond = lastAllocated < 0 || seconds <= 0 ? 0 : Math.max(0, allocated - lastAllocated) / seconds;
+
+        long count = getGcCollections(), millis = getGcMillis();
+
+        StringBuilder line = new StringBuilder("metrics")
+                .append(" steps=").append(steps.get())
+                .append(" samples=").append(total)
+                .append(String.format(" samples_per_sec=%.1f", samplesPerSecond));
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram h = byOrdinal[phase.ordinal()];
+            h.roll();
+            if (h.getIntervalCount() == 0) continue;
+            String key = phase.key();
+            line.append(' ').append(key).append("_count=").append(h.getIntervalCount())
+                .append(String.format(" %s_mean_ms=%.3f %s_p50_ms=%.3f %s_p99_ms=%.3f",
+                        key, h.getIntervalMeanMillis(), key, h.getIntervalP50Millis(), key, h.getIntervalP99Millis()));
+        }
+        line.append(String.format(" alloc_mb_per_sec=%.1f", allocatedPerSecond / 1e6))
+            .append(" gc_count=").append(count - lastGcCount)
+            .append(" gc_ms=").append(millis - lastGcMillis);
+
+        lastRollNanos = now;
+        lastSamples = total;
+        lastAllocated = allocated;
+        lastGcCount = count;
+        lastGcMillis = millis;
+        rolled = true;
+        return line.toString();
+    }
+
+    /**
+     * Bytes allocated so far, or -1 if the JVM cannot tell. The JVM only counts live threads, so a
+     * thread that ended keeps the count it had at the previous call and the total never goes back;
+     * what it allocated after that call is missed. The worker pools live as long as training does.
+     */
+    synchronized long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean hotspot) || !hotspot.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long[] ids = threads.getAllThreadIds();
+        long[] allocated = hotspot.getThreadAllocatedBytes(ids);
+        Map<Long, Long> live = new HashMap<>();
+        long sum = 0;
+        for (int t = 0; t < ids.length; t++) {
+            if (allocated[t] < 0) continue; // ended in between
+            live.put(ids[t], allocated[t]);
+            sum += allocated[t];
+        }
+        for (Map.Entry<Long, Long> seen : threadAllocated.entrySet()) {
+            if (!live.containsKey(seen.getKey())) retiredAllocated += seen.getValue();
+        }
+        threadAllocated = live;
+        return retiredAllocated + sum;
+    }
+
+    @Override
+    public long getSteps() {
+        return steps.get();
+    }
+
+    @Override
+    public long getSamples() {
+        return samples.get();
+    }
+
+    @Override
+    public double getSamplesPerSecond() {
+        if (rolled) return samplesPerSecond;
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds > 0 ? samples.get() / seconds : 0;
+    }
+
+    @Override
+    public long getBatchStalls() {
+        return histogram(Phase.BATCH_WAIT).getCount();
+    }
+
+    @Override
+    public double getBatchStallMillis() {
+        LatencyHistogram h = histogram(Phase.BATCH_WAIT);
+        return h.getMeanMillis() * h.getCount();
+    }
+
+    @Override
+    public long getCheckpointWrites() {
+        return histogram(Phase.CHECKPOINT_WRITE).getCount();
+    }
+
+    @Override
+    public double getMaxCheckpointWriteMillis() {
+        return histogram(Phase.CHECKPOINT_WRITE).getMaxMillis();
+    }
+
+    @Override
+    public double getAllocatedMegabytesPerSecond() {
+        return allocatedPerSecond / 1e6;
+    }
+
+    @Override
+    public long getGcCollections() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    @Override
+    public long getGcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,27 @@
+package de.jakob.metrics;
+
+/** The JMX view of {@link TrainingMetrics}; rates cover the last reporting interval. */
+public interface TrainingMetricsMBean {
+
+    long getSteps();
+
+    long getSamples();
+
+    double getSamplesPerSecond();
+
+    /** How often training waited for the batch loader */
+    long getBatchStalls();
+
+    double getBatchStallMillis();
+
+    long getCheckpointWrites();
+
+    double getMaxCheckpointWriteMillis();
+
+    double getAllocatedMegabytesPerSecond();
+
+    /** Collections by all collectors since startup */
+    long getGcCollections();
+
+    long getGcMillis();
+}
@@ -0,0 +1,69 @@
+package de.jakob.preprocessing;
+
+import de.jakob.data.BinaryDataset;
+import de.jakob.data.BinaryDatasetWriter;
+import de.jakob.data.Dataset;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Converts a CSV written by {@link DoodleCsvGenerator} (one‑hot label, then the pixels)
+ * into the binary format read by {@link BinaryDataset}.
+ * <pre>java de.jakob.preprocessing.CsvToBinaryConverter in.csv out.bin [byte|bit] [classes]</pre>
+ * Use {@code bit} for datasets generated with clamped 0/1 pixels. The label names, if the CSV has
+ * them, are copied along and give the number of classes; without them it is the {@code classes}
+ * argument, 10 for the original dataset. Lines with any other number of fields are rejected.
+ */
+public class CsvToBinaryConverter {
+
+    private static final int IMG_SIZE = 80;
+    private static final int DEFAULT_CLASSES = 10;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: CsvToBinaryConverter <in.csv> <out.bin> [byte|bit] [classes]");
+            return;
+        }
+        Path in = Path.of(args[0]), out = Path.of(args[1]);
+        BinaryDataset.Encoding encoding = args.length > 2
+                ? BinaryDataset.Encoding.valueOf(args[2].toUpperCase())
+                : BinaryDataset.Encoding.BYTE;
+        List<String> labels = Dataset.readLabels(in);
+        int classes = labels != null ? labels.size() : args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_CLASSES;
+        if (labels != null && args.length > 3 && Integer.parseInt(args[3]) != classes) {
+            throw new IOException(in + " has " + classes + " labels, not " + args[3] + " classes");
+        }
+
+        float[] pixels = new float[IMG_SIZE * IMG_SIZE];
+        try (BufferedReader reader = Files.newBufferedReader(in);
+             BinaryDatasetWriter writer = new BinaryDatasetWriter(out, IMG_SIZE, IMG_SIZE, classes, encoding)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                int label = -1, field = 0, start = 0;
+                for (int end = 0; end <= line.length(); end++) {
+                    if (end < line.length() && line.charAt(end) != ',') continue;
+                    if (field < classes) {
+                        if (line.charAt(start) == '1') label = field;
+                    } else if (field - classes < pixels.length) {
+                        pixels[field - classes] = Float.parseFloat(line.substring(start, end));
+                    }
+                    field++;
+                    start = end + 1;
+                }
+                if (field != classes + pixels.length) {
+                    throw new IOException("Line " + (writer.getCount() + 1) + " has " + field + " fields, expected "
+                            + classes + " labels and " + pixels.length + " pixels");
+                }
+                if (label < 0) throw new IOException("Line " + (writer.getCount() + 1) + " has no label");
+                writer.write(label, pixels);
+            }
+            System.out.println("Wrote " + writer.getCount() + " samples to " + out.toAbsolutePath());
+        }
+        if (labels != null) Dataset.writeLabels(out, labels);
+    }
+}
@@ -1,70 +1,245 @@
 package de.jakob.preprocessing;
 
+import de.jakob.data.BinaryDataset;
+import de.jakob.data.BinaryDatasetWriter;
+import de.jakob.data.CsvDatasetWriter;
+import de.jakob.data.Dataset;
+import de.jakob.data.SampleWriter;
+
 import javax.imageio.ImageIO;
-import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.Raster;
-import java.io.*;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
-
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Turns a folder of doodle PNGs, one sub‑folder per label, into a dataset: CSV (one‑hot label,
+ * then the pixels) or, for an output ending in .bin, the {@link BinaryDataset} format.
+ * Images are decoded and scaled on a worker pool and written in folder order.
+ * <p>
+ * Folders are labelled in sorted order, and the label names are written next to the output (see
+ * {@link Dataset#readLabels}) so predictions can be shown under the right names.
+ * <p>
+ * What went into the output is recorded in {@code <output>.manifest} (see {@link Manifest}), so a
+ * rerun only decodes images that are new or whose content changed, and appends them; an
+ * interrupted run picks up after the last sample it recorded. When a run replaced or lost images,
+ * the output is compacted at its end, dropping their old samples; delete the output and its
+ * manifest to rebuild from scratch.
+ * <pre>java de.jakob.preprocessing.DoodleCsvGenerator &lt;doodle folder&gt; &lt;out.csv|out.bin&gt; [threads]</pre>
+ */
 public class DoodleCsvGenerator {
 
     private static final int IMG_SIZE = 80;
-    private static final File DOODLE_FOLDER = new File("\\D:\\Jakob\\Programming\\Datasets\\Doodles");
-    private static final File OUTPUT_CSV = new File("doodles_" + IMG_SIZE + "px.csv");
 
     private static final boolean clampValues = true;
 
-    public static void main(String[] args) throws IOException {
-        List<File> labelFolders = Arrays.asList(Objects.requireNonNull(DOODLE_FOLDER.listFiles(File::isDirectory)));
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(OUTPUT_CSV))) {
-            for (int labelIndex = 0; labelIndex < labelFolders.size(); labelIndex++) {
-                File folder = labelFolders.get(labelIndex);
-                File[] images = folder.listFiles((dir, name) -> name.toLowerCase().endsWith(".png"));
-
-                if (images == null) continue;
+    /** Samples between flushes of the output and then the manifest, which bounds the work an interruption loses */
+    private static final int FLUSH_INTERVAL = 256;
 
-                for (File imageFile : images) {
-                    float[] pixels = extractPixels(imageFile);
-                    float[] labelVector = oneHot(labelIndex, labelFolders.size());
-
-                    StringBuilder sb = new StringBuilder();
-                    for (float l : labelVector) sb.append((int) l).append(",");
-                    for (int i = 0; i < pixels.length; i++) {
-                        sb.append(pixels[i]);
-                        if (i < pixels.length - 1) sb.append(",");
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println("Usage: DoodleCsvGenerator <doodle folder> <out.csv|out.bin> [threads]");
+            return;
+        }
+        File doodleFolder = new File(args[0]);
+        Path output = Path.of(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        File[] folders = Objects.requireNonNull(doodleFolder.listFiles(File::isDirectory), "Not a folder: " + doodleFolder);
+        // sorted, so labels and sample order are the same on every run and the manifest stays valid
+        Arrays.sort(folders);
+        List<File> labelFolders = Arrays.asList(folders);
+        List<String> labels = labelFolders.stream().map(File::getName).toList();
+        Dataset.writeLabels(output, labels);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        // images being decoded, oldest first; bounded so a huge folder is never held in memory at once
+        ArrayDeque<Pending> inFlight = new ArrayDeque<>();
+        int window = 4 * threads;
+        int unmodified = 0, unchanged = 0, written = 0;
+
+        Path manifestFile = Path.of(output + ".manifest");
+        long outputSize = Files.exists(output) ? Files.size(output) : 0;
+        Set<String> present = new HashSet<>();
+        try (Manifest manifest = Manifest.open(manifestFile, labels, outputSize)) {
+            if (manifest.samples() > 0) {
+                System.out.println("Resuming after " + manifest.samples() + " samples in " + output.toAbsolutePath());
+            }
+            try (SampleWriter writer = open(output, labels.size(), manifest.samples(), manifest.end())) {
+                for (int labelIndex = 0; labelIndex < labelFolders.size(); labelIndex++) {
+                    File folder = labelFolders.get(labelIndex);
+                    File[] images = folder.listFiles((dir, name) -> name.toLowerCase().endsWith(".png"));
+
+                    if (images == null) continue;
+                    Arrays.sort(images);
+
+                    for (File imageFile : images) {
+                        String path = folder.getName() + "/" + imageFile.getName();
+                        present.add(path);
+                        long size = imageFile.length(), modified = imageFile.lastModified();
+                        Manifest.Entry previous = manifest.get(path);
+                        if (previous != null && previous.size() == size && previous.modified() == modified) {
+                            unmodified++;
+                            continue;
+                        }
+
+                        if (inFlight.size() == window) {
+                            if (writeNext(inFlight, writer, manifest)) written++; else unchanged++;
+                        }
+                        String previousHash = previous == null ? null : previous.sha256();
+                        inFlight.add(new Pending(labelIndex, path,
+                                pool.submit(() -> decode(imageFile, size, modified, previousHash))));
                     }
-                    writer.write(sb.toString());
-                    writer.newLine();
+
+                    System.out.println("Queued folder: " + folder.getName());
                 }
+                while (!inFlight.isEmpty()) {
+                    if (writeNext(inFlight, writer, manifest)) written++; else unchanged++;
+                }
+                writer.flush();
+                manifest.flush();
+                System.out.println("Wrote " + written + " samples, skipped " + unmodified + " unmodified and "
+                        + unchanged + " touched but unchanged images; " + writer.getCount() + " samples in "
+                        + output.toAbsolutePath());
+            }
 
-                System.out.println("Processed folder: " + folder.getName());
+            List<Manifest.Entry> live = manifest.live(present);
+            if (live.size() < manifest.samples()) {
+                System.out.println("Dropping " + (manifest.samples() - live.size()) + " samples of changed or deleted images");
+                compact(output, labels.size(), manifest, live);
+            } else if (manifest.isTouched()) {
+                manifest.rewrite(live, null, output);
             }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Copies the header and the live samples of output, in order, to a new file and replaces
+     * output and the manifest with it and its entries
+     */
+    private static void compact(Path output, int classes, Manifest manifest, List<Manifest.Entry> live) throws IOException {
+        // same extension, so it is opened in the same format
+        Path compacted = output.resolveSibling("compacting-" + output.getFileName());
+        List<Manifest.Entry> moved = new ArrayList<>(live.size());
+        try (FileChannel in = FileChannel.open(output, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            transfer(in, 0, manifest.start(), out);
+            for (Manifest.Entry e : live) {
+                moved.add(new Manifest.Entry(e.size(), e.modified(), e.sha256(), out.position(), e.length(), e.path()));
+                transfer(in, e.offset(), e.length(), out);
+            }
+        }
+        long end = moved.isEmpty() ? manifest.start() : moved.get(moved.size() - 1).end();
+        // reopening and closing fills in the binary header's sample count
+        open(compacted, classes, moved.size(), end).close();
+        manifest.rewrite(moved, compacted, output);
+    }
+
+    private static void transfer(FileChannel in, long position, long count, FileChannel out) throws IOException {
+        for (long done = 0; done < count; ) {
+            done += in.transferTo(position + done, count - done, out);
+        }
+    }
+
+    private record Pending(int label, String path, Future<Decoded> result) {}
+
+    /** A read image; pixels is null if its content hashes the same as the recorded one */
+    private record Decoded(long size, long modified, String sha256, float[] pixels) {}
+
+    private static Decoded decode(File imageFile, long size, long modified, String previousHash) throws IOException {
+        byte[] data = Files.readAllBytes(imageFile.toPath());
+        String sha256 = Manifest.sha256(data);
+        if (sha256.equals(previousHash)) return new Decoded(size, modified, sha256, null);
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+        if (image == null) throw new IOException("Not a readable image: " + imageFile);
+        return new Decoded(size, modified, sha256, extractPixels(image));
+    }
+
+    /** Writes the oldest pending image and records it; false if its content was unchanged */
+    private static boolean writeNext(ArrayDeque<Pending> inFlight, SampleWriter writer, Manifest manifest)
+            throws IOException, InterruptedException {
+        Pending next = inFlight.poll();
+        Decoded decoded;
+        try {
+            decoded = next.result().get();
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
         }
+        if (decoded.pixels() == null) {
+            manifest.touch(next.path(), decoded.size(), decoded.modified());
+            return false;
+        }
+
+        long offset = writer.position();
+        writer.write(next.label(), decoded.pixels());
+        manifest.add(new Manifest.Entry(decoded.size(), decoded.modified(), decoded.sha256(),
+                offset, writer.position() - offset, next.path()));
 
-        System.out.println("CSV generation complete: " + OUTPUT_CSV.getAbsolutePath());
+        // the output first, so the manifest never points past what is on disk
+        if (manifest.samples() % FLUSH_INTERVAL == 0) {
+            writer.flush();
+            manifest.flush();
+        }
+        return true;
     }
 
-    private static float[] extractPixels(File imageFile) throws IOException {
-        BufferedImage original = ImageIO.read(imageFile);
+    /** A fresh output, or the existing one cut back to its first samples, which end at byte end */
+    private static SampleWriter open(Path output, int classes, long samples, long end) throws IOException {
+        boolean resume = samples > 0;
+        if (output.toString().endsWith(".bin")) {
+            // clamped pixels are 0 or 1, one bit each is enough
+            BinaryDataset.Encoding encoding = clampValues ? BinaryDataset.Encoding.BIT : BinaryDataset.Encoding.BYTE;
+            return resume
+                    ? BinaryDatasetWriter.append(output, IMG_SIZE, IMG_SIZE, classes, encoding, samples)
+                    : new BinaryDatasetWriter(output, IMG_SIZE, IMG_SIZE, classes, encoding);
+        }
+        return resume
+                ? CsvDatasetWriter.append(output, classes, samples, end)
+                : new CsvDatasetWriter(output, classes);
+    }
 
-        BufferedImage resized = new BufferedImage(
-                IMG_SIZE, IMG_SIZE,
-                BufferedImage.TYPE_BYTE_GRAY
-        );
-        Graphics2D g2d = resized.createGraphics();
-        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
-                RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
-        g2d.drawImage(original, 0, 0, IMG_SIZE, IMG_SIZE, null);
-        g2d.dispose();
+    /**
+     * Nearest‑neighbour scales the image to IMG_SIZE × IMG_SIZE, reading only the source pixels
+     * that are sampled. Transparent pixels count as black, as if drawn onto a black canvas.
+     */
+    static float[] extractPixels(BufferedImage original) {
+        int width = original.getWidth(), height = original.getHeight();
+        Raster grayRaster = original.getType() == BufferedImage.TYPE_BYTE_GRAY ? original.getRaster() : null;
 
-        Raster raster = resized.getRaster();
         float[] pixels = new float[IMG_SIZE * IMG_SIZE];
         for (int y = 0; y < IMG_SIZE; y++) {
+            // centre of the target pixel, rounded down, and down again when it falls exactly on a source edge
+            int sy = ((2 * y + 1) * height - 1) / (2 * IMG_SIZE);
             for (int x = 0; x < IMG_SIZE; x++) {
-                int gray = raster.getSample(x, y, 0);
+                int sx = ((2 * x + 1) * width - 1) / (2 * IMG_SIZE);
+                int gray;
+                if (grayRaster != null) {
+                    gray = grayRaster.getSample(sx, sy, 0);
+                } else {
+                    int argb = original.getRGB(sx, sy);
+                    int luma = (299 * (argb >> 16 & 0xFF) + 587 * (argb >> 8 & 0xFF) + 114 * (argb & 0xFF)) / 1000;
+                    gray = luma * (argb >>> 24) / 255;
+                }
 
                 pixels[y * IMG_SIZE + x] = clampValues ? gray < 255 ? 1 : 0 : 1 - (gray / 255.0f);
             }
@@ -72,12 +247,4 @@ public class DoodleCsvGenerator {
 
         return pixels;
     }
-
-
-
-    private static float[] oneHot(int index, int total) {
-        float[] vector = new float[total];
-        vector[index] = 1.0f;
-        return vector;
-    }
 }
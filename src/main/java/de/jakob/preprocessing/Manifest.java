@@ -0,0 +1,228 @@
+package de.jakob.preprocessing;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The record of what a preprocessing run put into its dataset: for every sample the source
+ * image, its size, modification time and SHA‑256, and where the sample sits in the output.
+ * It is appended to after each sample, so an interrupted run leaves a valid prefix to resume from.
+ * <p>
+ * A tab separated text file:
+ * <pre>
+ * # doodle manifest v1
+ * # labels &lt;tab&gt; name of label 0 &lt;tab&gt; name of label 1 ...
+ * size &lt;tab&gt; modified millis &lt;tab&gt; sha256 &lt;tab&gt; output offset &lt;tab&gt; output length &lt;tab&gt; source path
+ * </pre>
+ * The source path is relative to the doodle folder. When an image changes, a new line is added
+ * for it; the last line for a path is its current one, the samples of earlier ones are stale until
+ * the run ends and {@link #rewrite} replaces the file with one line per live sample.
+ */
+class Manifest implements Closeable, Flushable {
+
+    private static final String VERSION_LINE = "# doodle manifest v1";
+    private static final String LABELS_PREFIX = "# labels\t";
+
+    record Entry(long size, long modified, String sha256, long offset, long length, String path) {
+        long end() {
+            return offset + length;
+        }
+    }
+
+    private final Path file;
+    private final List<String> labels;
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, Integer> latest = new HashMap<>(); // path -> index of its current entry
+    private BufferedWriter writer;
+    private boolean touched;
+
+    private Manifest(Path file, List<String> labels) {
+        this.file   = file;
+        this.labels = labels;
+    }
+
+    /**
+     * Loads the manifest, keeping only the entries whose samples lie completely within the first
+     * {@code outputSize} bytes of the output, and reopens it for appending. A missing manifest, or
+     * one written for other labels, starts empty.
+     */
+    static Manifest open(Path file, List<String> labels, long outputSize) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (Files.exists(file) && read(file, labels, entries)) {
+            int valid = 0;
+            while (valid < entries.size() && entries.get(valid).end() <= outputSize) valid++;
+            entries.subList(valid, entries.size()).clear();
+        } else {
+            entries.clear();
+        }
+
+        // rewritten rather than appended to, which also drops a torn last line
+        Manifest manifest = new Manifest(file, labels);
+        manifest.replace(entries);
+        manifest.writer = manifest.create(file, entries);
+        return manifest;
+    }
+
+    /** Reads the entries; false if the file is not a manifest for these labels */
+    private static boolean read(Path file, List<String> labels, List<Entry> entries) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!VERSION_LINE.equals(reader.readLine())) return false;
+            if (!(LABELS_PREFIX + String.join("\t", labels)).equals(reader.readLine())) return false;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] f = line.split("\t", 6);
+                if (f.length < 6) break; // torn by an interrupted run
+                try {
+                    entries.add(new Entry(Long.parseLong(f[0]), Long.parseLong(f[1]), f[2],
+                            Long.parseLong(f[3]), Long.parseLong(f[4]), f[5]));
+                } catch (NumberFormatException e) {
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Samples in the output, including the stale ones of images that changed in this run */
+    int samples() {
+        return entries.size();
+    }
+
+    /** Where the recorded samples end in the output, or 0 if there are none */
+    long end() {
+        return entries.isEmpty() ? 0 : entries.get(entries.size() - 1).end();
+    }
+
+    /** Where the first sample starts in the output, which is the size of its header */
+    long start() {
+        return entries.isEmpty() ? 0 : entries.get(0).offset();
+    }
+
+    /** The current entry for a source path, or null */
+    Entry get(String path) {
+        Integer index = latest.get(path);
+        return index == null ? null : entries.get(index);
+    }
+
+    /** Records a new sample for e.path(); the sample of its previous entry, if any, becomes stale */
+    void add(Entry e) throws IOException {
+        latest.put(e.path(), entries.size());
+        entries.add(e);
+        write(writer, e);
+    }
+
+    /**
+     * Records the size and modification time of an image whose content did not change, so the
+     * next run skips it without hashing. Kept in memory until {@link #rewrite}.
+     */
+    void touch(String path, long size, long modified) {
+        int index = latest.get(path);
+        Entry e = entries.get(index);
+        entries.set(index, new Entry(size, modified, e.sha256(), e.offset(), e.length(), path));
+        touched = true;
+    }
+
+    /** The current entries of the given source paths, in output order; the others' samples are stale */
+    List<Entry> live(Set<String> present) {
+        List<Entry> live = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            Entry e = entries.get(i);
+            if (present.contains(e.path()) && latest.get(e.path()) == i) live.add(e);
+        }
+        return live;
+    }
+
+    /** Whether the file lacks what {@link #touch} recorded */
+    boolean isTouched() {
+        return touched;
+    }
+
+    /**
+     * Replaces the file with one holding just the given entries. If the output was compacted to
+     * match them into {@code compacted}, that is moved over {@code output} while no manifest
+     * exists: an interruption in between costs a full rebuild, but never leaves a manifest that
+     * describes another output.
+     */
+    void rewrite(List<Entry> live, Path compacted, Path output) throws IOException {
+        writer.close();
+        Path tmp = Path.of(file + ".tmp");
+        create(tmp, live).close();
+        if (compacted != null) {
+            Files.delete(file);
+            move(compacted, output);
+        }
+        move(tmp, file);
+        replace(live);
+        touched = false;
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    private void replace(List<Entry> live) {
+        entries.clear();
+        latest.clear();
+        for (Entry e : live) {
+            latest.put(e.path(), entries.size());
+            entries.add(e);
+        }
+    }
+
+    /** A new manifest file holding the header and the given entries, open for more */
+    private BufferedWriter create(Path target, List<Entry> entries) throws IOException {
+        BufferedWriter w = Files.newBufferedWriter(target, StandardCharsets.UTF_8);
+        w.write(VERSION_LINE);
+        w.newLine();
+        w.write(LABELS_PREFIX + String.join("\t", labels));
+        w.newLine();
+        for (Entry e : entries) write(w, e);
+        w.flush();
+        return w;
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void write(BufferedWriter writer, Entry e) throws IOException {
+        writer.write(e.size() + "\t" + e.modified() + "\t" + e.sha256() + "\t" + e.offset() + "\t" + e.length() + "\t" + e.path());
+        writer.newLine();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package de.jakob;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * {@link Checkpoint} round trips: parameters, output activation and optimizer state come back
+ * exactly, so training resumes as if it had never stopped; damaged files are refused.
+ */
+class CheckpointTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<Sample> data = ParallelTrainingTest.gaussianClusters(new Random(1), 64, 12, 3);
+
+    @ParameterizedTest
+    @CsvSource({"DOUBLE, sgd", "DOUBLE, nesterov", "DOUBLE, adam", "FLOAT, adamw", "FLOAT, sgd"})
+    void resumesExactly(Precision precision, String optimizer) throws IOException {
+        NeuralNetwork trained = network(precision);
+        trained.setOptimizer(Optimizer.named(optimizer));
+        trained.setOutputActivation(Activation.SOFTMAX);
+        for (int step = 0; step < 5; step++) trained.learn(data, 0.01);
+
+        Path file = dir.resolve("net.nnck");
+        trained.save(file);
+        NeuralNetwork resumed = new NeuralNetwork(precision, new Random(99), 12, 8, 3);
+        resumed.load(file);
+
+        assertEquals(trained.getOptimizer(), resumed.getOptimizer());
+        assertEquals(trained.getOptimizerSteps(), resumed.getOptimizerSteps());
+        assertEquals(Activation.SOFTMAX, resumed.getOutputActivation());
+        assertSameParameters(trained, resumed);
+
+        for (int step = 0; step < 5; step++) {
+            trained.learn(data, 0.01);
+            resumed.learn(data, 0.01);
+        }
+        assertSameParameters(trained, resumed);
+    }
+
+    @Test
+    void convertsBetweenPrecisions() throws IOException {
+        NeuralNetwork single = network(Precision.FLOAT);
+        Path file = dir.resolve("float.nnck");
+        single.save(file);
+
+        NeuralNetwork widened = network(Precision.DOUBLE);
+        widened.load(file);
+        assertSameParameters(single, widened);
+    }
+
+    @Test
+    void refusesDamagedFiles() throws IOException {
+        NeuralNetwork nn = network(Precision.DOUBLE);
+        nn.setOptimizer(Optimizer.named("adam"));
+        nn.learn(data, 0.01);
+        Path file = dir.resolve("net.nnck"), damaged = dir.resolve("damaged.nnck");
+        nn.save(file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        for (int length : new int[]{0, 16, 31, 40, 80, bytes.length - 1}) {
+            Files.write(damaged, Arrays.copyOf(bytes, length));
+            assertThrows(IOException.class, () -> Checkpoint.read(damaged, Precision.DOUBLE), "truncated to " + length);
+        }
+        // dtype, layer count, activation, optimizer kind, a node count, and a parameter byte
+        for (int offset : new int[]{8, 12, 24, 28, 72, bytes.length - 4}) {
+            byte[] copy = bytes.clone();
+            copy[offset + 3] ^= 0x40;
+            Files.write(damaged, copy);
+            assertThrows(IOException.class, () -> Checkpoint.read(damaged, Precision.DOUBLE), "damaged at " + offset);
+        }
+    }
+
+    private static NeuralNetwork network(Precision precision) {
+        return new NeuralNetwork(precision, new Random(2), 12, 8, 3);
+    }
+
+    private static void assertSameParameters(NeuralNetwork expected, NeuralNetwork actual) {
+        for (int l = 0; l < expected.getLayers().length; l++) {
+            assertArrayEquals(expected.getLayers()[l].copyWeightData(), actual.getLayers()[l].copyWeightData());
+            assertArrayEquals(expected.getLayers()[l].copyBiases(), actual.getLayers()[l].copyBiases());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package de.jakob;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** {@link CheckpointWriter}: a failed background write is reported by flush until a later one succeeds. */
+class CheckpointWriterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void flushReportsAFailedWrite() throws IOException {
+        Path missing = dir.resolve("missing");
+        NeuralNetwork nn = new NeuralNetwork(Precision.DOUBLE, new Random(1), 6, 4, 3);
+        try (CheckpointWriter writer = new CheckpointWriter(missing.resolve("net.nnck"))) {
+            writer.save(nn);
+            IOException e = assertThrows(IOException.class, writer::flush);
+            assertTrue(e.getCause() instanceof IOException, String.valueOf(e.getCause()));
+            assertEquals(1, writer.getFailures());
+
+            Files.createDirectory(missing);
+            writer.save(nn);
+            writer.flush();
+            assertEquals(1, writer.getWrites());
+            assertTrue(Files.exists(missing.resolve("net.nnck")));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package de.jakob;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * {@link IncrementalInference}: outputs after any mix of single‑value changes and whole‑input
+ * replacements have to be those of a full {@link NeuralNetwork#calculate} of the same input.
+ */
+class IncrementalInferenceTest {
+
+    private static final int IN = 120;
+
+    @ParameterizedTest
+    @EnumSource(Precision.class)
+    void matchesFullInference(Precision precision) {
+        NeuralNetwork nn = new NeuralNetwork(precision, new Random(1), IN, 24, 12, 5);
+        nn.setOutputActivation(Activation.SOFTMAX);
+        assertIncrementalMatchesFull(nn);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Precision.class)
+    void usesTheFirstLayersOwnActivation(Precision precision) {
+        // a single layer is the output layer, softmax rather than ReLU
+        NeuralNetwork nn = new NeuralNetwork(precision, new Random(2), IN, 5);
+        nn.setOutputActivation(Activation.SOFTMAX);
+        assertIncrementalMatchesFull(nn);
+    }
+
+    private static void assertIncrementalMatchesFull(NeuralNetwork nn) {
+        double tolerance = nn.getPrecision() == Precision.FLOAT ? 1e-5 : 1e-9;
+        Random random = new Random(3);
+        IncrementalInference inference = new IncrementalInference(nn);
+        double[] input = new double[IN], out = new double[5];
+
+        assertArrayEquals(nn.calculate(input), inference.outputs(out), tolerance);
+        for (int stroke = 0; stroke < 20; stroke++) {
+            for (int k = 0; k < 10; k++) {
+                int i = random.nextInt(IN);
+                input[i] = random.nextBoolean() ? random.nextDouble() : 0;
+                inference.set(i, input[i]);
+            }
+            assertArrayEquals(nn.calculate(input), inference.outputs(out), tolerance, "after stroke " + stroke);
+        }
+
+        for (int i = 0; i < IN; i++) input[i] = random.nextDouble() < 0.2 ? 1 : 0;
+        inference.setAll(input);
+        assertArrayEquals(nn.calculate(input), inference.outputs(out), tolerance);
+    }
+}
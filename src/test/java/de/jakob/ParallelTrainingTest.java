@@ -0,0 +1,67 @@
+package de.jakob;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Data‑parallel {@link NeuralNetwork#learn}: splitting a batch across workers only changes the
+ * order gradients are summed in, and for a fixed thread count that order is fixed too.
+ */
+class ParallelTrainingTest {
+
+    @ParameterizedTest
+    @EnumSource(Precision.class)
+    void workersTrainLikeOneThread(Precision precision) {
+        List<Sample> data = gaussianClusters(new Random(1), 200, 30, 4);
+        NeuralNetwork single = train(precision, 1, data);
+        NeuralNetwork parallel = train(precision, 3, data);
+
+        double tolerance = precision == Precision.FLOAT ? 1e-4 : 1e-10;
+        for (int l = 0; l < single.getLayers().length; l++) {
+            assertArrayEquals(single.getLayers()[l].copyWeightData(), parallel.getLayers()[l].copyWeightData(), tolerance);
+            assertArrayEquals(single.getLayers()[l].copyBiases(), parallel.getLayers()[l].copyBiases(), tolerance);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Precision.class)
+    void workersAreDeterministic(Precision precision) {
+        List<Sample> data = gaussianClusters(new Random(1), 200, 30, 4);
+        NeuralNetwork first = train(precision, 3, data);
+        NeuralNetwork second = train(precision, 3, data);
+
+        for (int l = 0; l < first.getLayers().length; l++) {
+            assertArrayEquals(first.getLayers()[l].copyWeightData(), second.getLayers()[l].copyWeightData());
+            assertArrayEquals(first.getLayers()[l].copyBiases(), second.getLayers()[l].copyBiases());
+        }
+    }
+
+    private static NeuralNetwork train(Precision precision, int threads, List<Sample> data) {
+        NeuralNetwork nn = new NeuralNetwork(precision, new Random(2), 30, 16, 8, 4);
+        nn.setThreads(threads);
+        // batches of 150 rows: several chunks per worker, and a short last one
+        for (int step = 0; step < 20; step++) {
+            int from = step % 2 * 50;
+            nn.learn(data.subList(from, from + 150), 0.01);
+        }
+        return nn;
+    }
+
+    /** Dense samples: every class is a Gaussian blob around its own mean */
+    static List<Sample> gaussianClusters(Random random, int count, int inputs, int classes) {
+        List<Sample> data = new ArrayList<>(count);
+        for (int n = 0; n < count; n++) {
+            int label = random.nextInt(classes);
+            double[] x = new double[inputs];
+            for (int i = 0; i < inputs; i++) x[i] = random.nextGaussian() + (i % classes == label ? 1.5 : 0);
+            data.add(new DataPoint(x, OneHot.of(label, classes)));
+        }
+        return data;
+    }
+}
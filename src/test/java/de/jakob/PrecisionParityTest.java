@@ -0,0 +1,77 @@
+package de.jakob;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Accuracy parity between {@link Precision#FLOAT} and {@link Precision#DOUBLE}: two networks from
+ * the same seed, trained on the same synthetic doodle‑shaped data, have to agree on their outputs
+ * before training and on their accuracy after it.
+ */
+class PrecisionParityTest {
+
+    private static final double TOLERANCE = 0.02;
+    private static final int CLASSES = 10;
+    private static final int INPUTS = 20 * 20;
+
+    @Test
+    void floatTrainsAsWellAsDouble() {
+        List<Sample> train = syntheticDoodles(new Random(1), 2000, INPUTS);
+        List<Sample> test  = syntheticDoodles(new Random(2), 500, INPUTS);
+
+        NeuralNetwork d = new NeuralNetwork(Precision.DOUBLE, new Random(42), INPUTS, 64, 32, CLASSES);
+        NeuralNetwork f = new NeuralNetwork(Precision.FLOAT,  new Random(42), INPUTS, 64, 32, CLASSES);
+
+        assertEquals(0, maxOutputDifference(d, f, test), 1e-4, "outputs before training");
+
+        Random order = new Random(7);
+        for (int step = 0; step < 300; step++) {
+            List<Sample> batch = new ArrayList<>(32);
+            for (int i = 0; i < 32; i++) batch.add(train.get(order.nextInt(train.size())));
+            d.learn(batch, 0.01);
+            f.learn(batch, 0.01);
+        }
+
+        double accD = d.correctPoints(test) / (double) test.size();
+        double accF = f.correctPoints(test) / (double) test.size();
+        assertTrue(accD > 0.5, "the double network learned nothing: " + accD);
+        assertTrue(accD - accF <= TOLERANCE, "float accuracy " + accF + " is more than " + TOLERANCE + " below double " + accD);
+    }
+
+    private static double maxOutputDifference(NeuralNetwork a, NeuralNetwork b, List<Sample> data) {
+        double max = 0;
+        for (Sample s : data) {
+            double[] x = a.calculate(s.inputs());
+            double[] y = b.calculate(s.inputs());
+            for (int i = 0; i < x.length; i++) max = Math.max(max, Math.abs(x[i] - y[i]));
+        }
+        return max;
+    }
+
+    /** Sparse 0/1 images: each class keeps most pixels of its own random stroke mask, plus a little noise */
+    static List<Sample> syntheticDoodles(Random random, int count, int inputs) {
+        Random masks = new Random(0);
+        boolean[][] mask = new boolean[CLASSES][inputs];
+        for (boolean[] m : mask) {
+            for (int i = 0; i < inputs; i++) m[i] = masks.nextDouble() < 0.08;
+        }
+
+        List<Sample> data = new ArrayList<>(count);
+        for (int n = 0; n < count; n++) {
+            int label = n % CLASSES;
+            float[] x = new float[inputs];
+            for (int i = 0; i < inputs; i++) {
+                boolean on = mask[label][i] ? random.nextDouble() < 0.8 : random.nextDouble() < 0.02;
+                x[i] = on ? 1 : 0;
+            }
+            data.add(new FloatDataPoint(x, OneHot.of(label, CLASSES)));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,69 @@
+package de.jakob;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.DoubleConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The softmax output layer: its outputs are a distribution, its cost is the categorical
+ * cross‑entropy, and back‑prop's a − y node values are that cost's true gradient.
+ */
+class SoftmaxOutputTest {
+
+    private static final double H = 1e-6;
+
+    private final Sample sample = new DataPoint(new double[]{0.3, -1, 2, 0.5, 1, -0.2}, OneHot.of(1, 3));
+
+    @Test
+    void outputsAreADistribution() {
+        NeuralNetwork nn = network();
+        double[] out = nn.calculate(sample.inputs());
+        double sum = 0;
+        for (double p : out) sum += p;
+        assertEquals(1, sum, 1e-12);
+        assertEquals(-Math.log(out[1]), nn.cost(sample), 1e-9);
+    }
+
+    @Test
+    void backPropMatchesFiniteDifferences() {
+        NeuralNetwork probe = network(), stepped = network();
+        // one SGD step from zero velocity with learning rate 1 moves every parameter by −gradient
+        stepped.learn(List.of(sample), 1);
+
+        for (int l = 0; l < probe.getLayers().length; l++) {
+            Layer layer = probe.getLayers()[l];
+            double[] w = layer.copyWeightData(), b = layer.copyBiases();
+            double[] wAfter = stepped.getLayers()[l].copyWeightData(), bAfter = stepped.getLayers()[l].copyBiases();
+            for (int j = 0; j < layer.getnOut(); j++) {
+                int node = j;
+                for (int i = 0; i < layer.getnIn(); i++) {
+                    int in = i, k = j * layer.getnIn() + i;
+                    double numeric = centralDifference(probe, v -> layer.setWeight(node, in, v), w[k]);
+                    assertEquals(numeric, w[k] - wAfter[k], 1e-6, "layer " + l + " weight " + j + "←" + i);
+                }
+                double numeric = centralDifference(probe, v -> layer.setBias(node, v), b[j]);
+                assertEquals(numeric, b[j] - bAfter[j], 1e-6, "layer " + l + " bias " + j);
+            }
+        }
+    }
+
+    /** d cost / d parameter, moving the parameter through set and putting it back afterwards */
+    private double centralDifference(NeuralNetwork nn, DoubleConsumer set, double value) {
+        set.accept(value + H);
+        double up = nn.cost(sample);
+        set.accept(value - H);
+        double down = nn.cost(sample);
+        set.accept(value);
+        return (up - down) / (2 * H);
+    }
+
+    private static NeuralNetwork network() {
+        NeuralNetwork nn = new NeuralNetwork(Precision.DOUBLE, new Random(4), 6, 5, 3);
+        nn.setOutputActivation(Activation.SOFTMAX);
+        return nn;
+    }
+}
@@ -0,0 +1,110 @@
+package de.jakob;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * The sparse first‑layer path: CSR forward passes and gradients have to match the dense ones, and
+ * bit‑packed samples have to train exactly like the same images stored as doubles.
+ */
+class SparseInputTest {
+
+    private static final int ROWS = 6, IN = 50, OUT = 7;
+
+    @ParameterizedTest
+    @EnumSource(Precision.class)
+    void csrLayerMatchesDense(Precision precision) {
+        Random random = new Random(1);
+        Layer layer = new Layer(IN, OUT, new Random(2), precision);
+
+        // about one input in ten is non‑zero; every other row is binary
+        double[] dense = new double[ROWS * IN];
+        List<Integer> idx = new ArrayList<>();
+        List<Double> val = new ArrayList<>();
+        int[] start = new int[ROWS + 1];
+        for (int r = 0; r < ROWS; r++) {
+            start[r] = idx.size();
+            for (int i = 0; i < IN; i++) {
+                if (random.nextDouble() >= 0.1) continue;
+                double v = r % 2 == 0 ? 1 : random.nextGaussian();
+                dense[r * IN + i] = v;
+                idx.add(i);
+                val.add(v);
+            }
+        }
+        start[ROWS] = idx.size();
+        int[] csrIdx = idx.stream().mapToInt(Integer::intValue).toArray();
+        double[] csrVal = val.stream().mapToDouble(Double::doubleValue).toArray();
+        double[] nodeVals = new double[ROWS * OUT];
+        for (int k = 0; k < nodeVals.length; k++) nodeVals[k] = random.nextGaussian();
+
+        LayerWorkspace denseWs = layer.newWorkspace(), sparseWs = layer.newWorkspace();
+        if (precision == Precision.FLOAT) {
+            float[] d = layer.calculateOutputs(toFloat(dense), ROWS, denseWs);
+            layer.calculateSparseOutputs(start, csrIdx, toFloat(csrVal), ROWS, sparseWs);
+            assertArrayEquals(slice(d, ROWS * OUT), slice(sparseWs.activationsF, ROWS * OUT), 1e-5f);
+
+            layer.updateGradients(toFloat(nodeVals), denseWs);
+            layer.updateGradients(toFloat(nodeVals), sparseWs);
+            assertArrayEquals(denseWs.gradWF, sparseWs.gradWF, 1e-5f);
+            assertArrayEquals(denseWs.gradBF, sparseWs.gradBF, 1e-5f);
+        } else {
+            double[] d = layer.calculateOutputs(dense, ROWS, denseWs);
+            layer.calculateSparseOutputs(start, csrIdx, csrVal, ROWS, sparseWs);
+            assertArrayEquals(slice(d, ROWS * OUT), slice(sparseWs.activations, ROWS * OUT), 1e-12);
+
+            layer.updateGradients(nodeVals, denseWs);
+            layer.updateGradients(nodeVals, sparseWs);
+            assertArrayEquals(denseWs.gradW, sparseWs.gradW, 1e-12);
+            assertArrayEquals(denseWs.gradB, sparseWs.gradB, 1e-12);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Precision.class)
+    void bitPackedSamplesTrainLikeDoubles(Precision precision) {
+        Random random = new Random(3);
+        List<Sample> packed = new ArrayList<>(), doubles = new ArrayList<>();
+        for (int n = 0; n < 96; n++) {
+            double[] x = new double[IN];
+            for (int i = 0; i < IN; i++) x[i] = random.nextDouble() < 0.08 ? 1 : 0;
+            double[] y = OneHot.of(n % OUT, OUT);
+            packed.add(BitDataPoint.pack(x, y));
+            doubles.add(new DataPoint(x, y));
+        }
+
+        NeuralNetwork a = new NeuralNetwork(precision, new Random(4), IN, 16, OUT);
+        NeuralNetwork b = new NeuralNetwork(precision, new Random(4), IN, 16, OUT);
+        for (int step = 0; step < 10; step++) {
+            a.learn(packed, 0.05);
+            b.learn(doubles, 0.05);
+        }
+
+        double tolerance = precision == Precision.FLOAT ? 1e-5 : 1e-12;
+        for (int l = 0; l < a.getLayers().length; l++) {
+            assertArrayEquals(b.getLayers()[l].copyWeightData(), a.getLayers()[l].copyWeightData(), tolerance);
+            assertArrayEquals(b.getLayers()[l].copyBiases(), a.getLayers()[l].copyBiases(), tolerance);
+        }
+    }
+
+    private static double[] slice(double[] a, int n) {
+        return Arrays.copyOf(a, n);
+    }
+
+    private static float[] slice(float[] a, int n) {
+        return Arrays.copyOf(a, n);
+    }
+
+    private static float[] toFloat(double[] a) {
+        float[] f = new float[a.length];
+        for (int i = 0; i < a.length; i++) f[i] = (float) a[i];
+        return f;
+    }
+}
@@ -0,0 +1,93 @@
+package de.jakob.data;
+
+import de.jakob.DataPoint;
+import de.jakob.OneHot;
+import de.jakob.Sample;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * {@link BatchLoader}: batches come out in epoch order however many workers fill them, and a
+ * worker's failure reaches the trainer instead of leaving it waiting.
+ */
+class BatchLoaderTest {
+
+    private static final int SIZE = 4, SAMPLES = 203, BATCH = 8;
+
+    @Test
+    void workersDeliverInEpochOrder() throws InterruptedException {
+        List<Sample> data = samples();
+        List<Double> expected = epochs(data, 1);
+        assertEquals(3 * SAMPLES, expected.size());
+        assertEquals(SAMPLES, expected.subList(0, SAMPLES).stream().distinct().count());
+        for (int run = 0; run < 5; run++) assertEquals(expected, epochs(data, 4));
+    }
+
+    @Test
+    void failedBatchIsRethrownByNext() {
+        List<Sample> data = samples();
+        data.set(SAMPLES / 2, new Sample() {
+            @Override
+            public double[] inputs() {
+                throw new UnsupportedOperationException("unreadable");
+            }
+
+            @Override
+            public double[] expectedOutputs() {
+                return OneHot.of(0, 3);
+            }
+        });
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            try (BatchLoader loader = new BatchLoader(data, BATCH, SIZE, 4, 3, 0, 1)) {
+                loader.startEpoch();
+                IllegalStateException e = assertThrows(IllegalStateException.class, () -> {
+                    while (loader.next() != null) {
+                        // drain until the batch holding the bad sample
+                    }
+                });
+                assertInstanceOf(UnsupportedOperationException.class, e.getCause());
+
+                // the next epoch starts clean, and fails on the same sample again
+                loader.startEpoch();
+                assertThrows(IllegalStateException.class, () -> {
+                    while (loader.next() != null) {
+                        // as above
+                    }
+                });
+            }
+        });
+    }
+
+    private static List<Sample> samples() {
+        List<Sample> data = new ArrayList<>();
+        for (int n = 0; n < SAMPLES; n++) {
+            double[] x = new double[SIZE * SIZE];
+            x[0] = n + 0.5; // not binary, so copies keep the value
+            data.add(new DataPoint(x, OneHot.of(n % 3, 3)));
+        }
+        return data;
+    }
+
+    /** The samples of three epochs in the order training sees them, by their first input */
+    private static List<Double> epochs(List<Sample> data, int threads) throws InterruptedException {
+        List<Double> seen = new ArrayList<>();
+        try (BatchLoader loader = new BatchLoader(data, BATCH, SIZE, threads, 3, 0, 1)) {
+            for (int epoch = 0; epoch < 3; epoch++) {
+                loader.startEpoch();
+                for (List<Sample> batch; (batch = loader.next()) != null; ) {
+                    for (Sample s : batch) seen.add(s.inputs()[0]);
+                }
+            }
+        }
+        return seen;
+    }
+}
@@ -0,0 +1,46 @@
+package de.jakob.data;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** {@link BinaryDatasetWriter}: every flush leaves a dataset {@link BinaryDataset} can open. */
+class BinaryDatasetWriterTest {
+
+    private static final int SIZE = 5, CLASSES = 3;
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @EnumSource(BinaryDataset.Encoding.class)
+    void flushedSamplesSurviveAKilledRun(BinaryDataset.Encoding encoding) throws IOException {
+        Path file = dir.resolve("data.bin");
+        try (BinaryDatasetWriter writer = new BinaryDatasetWriter(file, SIZE, SIZE, CLASSES, encoding)) {
+            for (int n = 0; n < 5; n++) writer.write(n % CLASSES, image(n));
+            writer.flush();
+            // written but not flushed when the run dies
+            for (int n = 5; n < 7; n++) writer.write(n % CLASSES, image(n));
+
+            BinaryDataset prefix = BinaryDataset.open(file);
+            assertEquals(5, prefix.size());
+            for (int n = 0; n < 5; n++) {
+                assertEquals(n % CLASSES, prefix.label(n));
+                assertEquals(1, prefix.get(n).inputs()[n], "sample " + n);
+            }
+        }
+        assertEquals(7, BinaryDataset.open(file).size());
+    }
+
+    /** Only pixel n set, so a shifted record would show */
+    private static float[] image(int n) {
+        float[] pixels = new float[SIZE * SIZE];
+        pixels[n] = 1;
+        return pixels;
+    }
+}
@@ -0,0 +1,76 @@
+package de.jakob.data;
+
+import de.jakob.DataPoint;
+import de.jakob.OneHot;
+import de.jakob.Sample;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** {@link Dataset#split}: stratified, disjoint, complete, and the same for the same seed. */
+class DatasetTest {
+
+    // 50, 30 and 20 samples of classes 0, 1 and 2, interleaved
+    static final int[] CLASS_SIZES = {50, 30, 20};
+
+    @Test
+    void splitIsStratified() {
+        Dataset dataset = new Dataset(samples());
+        Dataset.Split split = dataset.split(40, 1);
+
+        assertArrayEquals(new int[]{20, 12, 8}, classCounts(split.train()));
+        assertArrayEquals(new int[]{30, 18, 12}, classCounts(split.validation()));
+    }
+
+    @Test
+    void splitIsDisjointAndComplete() {
+        List<Sample> samples = samples();
+        Dataset.Split split = new Dataset(samples).split(40, 1);
+
+        Set<Sample> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        seen.addAll(split.train());
+        for (Sample s : split.validation()) assertTrue(seen.add(s), "in both sets");
+        assertEquals(samples.size(), seen.size());
+    }
+
+    @Test
+    void splitDependsOnlyOnTheSeed() {
+        Dataset dataset = new Dataset(samples());
+        assertEquals(List.copyOf(dataset.split(40, 7).train()), List.copyOf(dataset.split(40, 7).train()));
+        assertNotEquals(List.copyOf(dataset.split(40, 7).train()), List.copyOf(dataset.split(40, 8).train()));
+    }
+
+    @Test
+    void quotasUseLargestRemainders() {
+        // 5 of 3 + 3 + 4: shares 1.5, 1.5 and 2 round down to 1, 1, 2; the tie for the last goes to the first class
+        assertArrayEquals(new int[]{2, 1, 2}, Dataset.quotas(5, new int[]{0, 3, 6, 10}));
+        // 4 of 5 + 3 + 2: shares 2, 1.2 and 0.8; the last goes to the 0.8
+        assertArrayEquals(new int[]{2, 1, 1}, Dataset.quotas(4, new int[]{0, 5, 8, 10}));
+    }
+
+    static List<Sample> samples() {
+        List<Sample> samples = new ArrayList<>();
+        int[] left = CLASS_SIZES.clone();
+        while (samples.size() < 100) {
+            for (int c = 0; c < left.length; c++) {
+                if (left[c]-- > 0) samples.add(new DataPoint(new double[]{samples.size()}, OneHot.of(c, left.length)));
+            }
+        }
+        return samples;
+    }
+
+    static int[] classCounts(Dataset.View view) {
+        int[] counts = new int[view.getClasses()];
+        for (int i = 0; i < view.size(); i++) counts[view.label(i)]++;
+        return counts;
+    }
+}
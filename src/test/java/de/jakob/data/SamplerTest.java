@@ -0,0 +1,73 @@
+package de.jakob.data;
+
+import com.sun.management.ThreadMXBean;
+import de.jakob.Sample;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** {@link Sampler}: class balance, distinct picks where promised, and draws that allocate nothing. */
+class SamplerTest {
+
+    private final Dataset.View view = new Dataset(DatasetTest.samples()).all();
+
+    @Test
+    void stratifiedDrawsKeepEveryClassShare() {
+        Sampler sampler = new Sampler(view, 20, Sampler.Mode.STRATIFIED, 1);
+        for (int draw = 0; draw < 50; draw++) {
+            int[] counts = new int[view.getClasses()];
+            for (int i = 0; i < sampler.size(); i++) counts[sampler.label(i)]++;
+            assertArrayEquals(new int[]{10, 6, 4}, counts);
+            assertDistinct(sampler);
+            sampler.draw();
+        }
+    }
+
+    @Test
+    void withoutReplacementPicksDistinctSamples() {
+        Sampler sampler = new Sampler(view, 60, Sampler.Mode.WITHOUT_REPLACEMENT, 2);
+        for (int draw = 0; draw < 50; draw++) {
+            assertEquals(60, sampler.size());
+            assertDistinct(sampler);
+            sampler.draw();
+        }
+        // more than the view holds is all of it
+        assertEquals(view.size(), new Sampler(view, 500, Sampler.Mode.WITHOUT_REPLACEMENT, 2).size());
+    }
+
+    @Test
+    void sameSeedDrawsTheSameSamples() {
+        Sampler a = new Sampler(view, 20, Sampler.Mode.WITH_REPLACEMENT, 3);
+        Sampler b = new Sampler(view, 20, Sampler.Mode.WITH_REPLACEMENT, 3);
+        for (int draw = 0; draw < 5; draw++) {
+            for (int i = 0; i < a.size(); i++) assertEquals(a.label(i), b.label(i));
+            a.draw();
+            b.draw();
+        }
+    }
+
+    @Test
+    void drawingAllocatesNothing() {
+        Sampler sampler = new Sampler(view, 20, Sampler.Mode.STRATIFIED, 4);
+        for (int i = 0; i < 10_000; i++) sampler.draw(); // warm up past the interpreter
+
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10_000; i++) sampler.draw();
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        // the measurement itself may allocate a little, 10 000 draws allocating anything would be far more
+        assertTrue(allocated < 1024, allocated + " bytes allocated");
+    }
+
+    private static void assertDistinct(Sampler sampler) {
+        Set<Sample> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Sample s : sampler) assertTrue(seen.add(s), "picked twice");
+    }
+}
@@ -0,0 +1,142 @@
+package de.jakob.kernel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link VectorKernels} against {@link ScalarKernels} on odd sizes, so both the vector loops and
+ * their scalar tails run. Sums may be taken in another order or with fused multiply‑adds, so
+ * results have to agree to rounding, not bit for bit.
+ */
+class KernelParityTest {
+
+    private static final int ROWS = 5, IN = 37, OUT = 19;
+    private static final double EPS = 1e-12;
+    private static final float EPS_F = 1e-4f;
+
+    private final Kernels scalar = new ScalarKernels();
+    private final Kernels vector = new VectorKernels();
+    private final Random random = new Random(1);
+
+    @Test
+    void forward() {
+        double[] x = values(ROWS * IN), w = values(OUT * IN), b = values(OUT);
+        double[] expected = new double[ROWS * OUT], actual = new double[ROWS * OUT];
+        scalar.forward(x, ROWS, IN, w, b, OUT, expected);
+        vector.forward(x, ROWS, IN, w, b, OUT, actual);
+        assertArrayEquals(expected, actual, EPS);
+
+        float[] xf = toFloat(x), wf = toFloat(w), bf = toFloat(b);
+        float[] expectedF = new float[ROWS * OUT], actualF = new float[ROWS * OUT];
+        scalar.forward(xf, ROWS, IN, wf, bf, OUT, expectedF);
+        vector.forward(xf, ROWS, IN, wf, bf, OUT, actualF);
+        assertArrayEquals(expectedF, actualF, EPS_F);
+    }
+
+    @Test
+    void backward() {
+        double[] d = values(ROWS * OUT), w = values(OUT * IN);
+        double[] expected = new double[ROWS * IN], actual = new double[ROWS * IN];
+        scalar.backward(d, ROWS, OUT, w, IN, expected);
+        vector.backward(d, ROWS, OUT, w, IN, actual);
+        assertArrayEquals(expected, actual, EPS);
+
+        float[] expectedF = new float[ROWS * IN], actualF = new float[ROWS * IN];
+        scalar.backward(toFloat(d), ROWS, OUT, toFloat(w), IN, expectedF);
+        vector.backward(toFloat(d), ROWS, OUT, toFloat(w), IN, actualF);
+        assertArrayEquals(expectedF, actualF, EPS_F);
+    }
+
+    @Test
+    void accumulate() {
+        double[] x = values(ROWS * IN), d = values(ROWS * OUT);
+        double[] gW = values(OUT * IN), gB = values(OUT);
+        double[] gW2 = gW.clone(), gB2 = gB.clone();
+        scalar.accumulate(x, d, ROWS, IN, OUT, gW, gB);
+        vector.accumulate(x, d, ROWS, IN, OUT, gW2, gB2);
+        assertArrayEquals(gW, gW2, EPS);
+        assertArrayEquals(gB, gB2, EPS);
+
+        float[] gWF = toFloat(values(OUT * IN)), gBF = toFloat(values(OUT));
+        float[] gWF2 = gWF.clone(), gBF2 = gBF.clone();
+        scalar.accumulate(toFloat(x), toFloat(d), ROWS, IN, OUT, gWF, gBF);
+        vector.accumulate(toFloat(x), toFloat(d), ROWS, IN, OUT, gWF2, gBF2);
+        assertArrayEquals(gWF, gWF2, EPS_F);
+        assertArrayEquals(gBF, gBF2, EPS_F);
+    }
+
+    @Test
+    void momentum() {
+        for (boolean nesterov : new boolean[]{false, true}) {
+            int n = OUT * IN;
+            double[] w = values(n), v = values(n), g = values(n);
+            double[] w2 = w.clone(), v2 = v.clone(), g2 = g.clone();
+            scalar.momentum(w, v, g, n, 0.9, 0.05, nesterov);
+            vector.momentum(w2, v2, g2, n, 0.9, 0.05, nesterov);
+            assertArrayEquals(w, w2, EPS);
+            assertArrayEquals(v, v2, EPS);
+            assertArrayEquals(new double[n], g2, "the gradient is cleared");
+
+            float[] wf = toFloat(values(n)), vf = toFloat(values(n)), gf = toFloat(values(n));
+            float[] wf2 = wf.clone(), vf2 = vf.clone(), gf2 = gf.clone();
+            scalar.momentum(wf, vf, gf, n, 0.9f, 0.05f, nesterov);
+            vector.momentum(wf2, vf2, gf2, n, 0.9f, 0.05f, nesterov);
+            assertArrayEquals(wf, wf2, EPS_F);
+            assertArrayEquals(vf, vf2, EPS_F);
+            assertArrayEquals(new float[n], gf2, "the gradient is cleared");
+        }
+    }
+
+    @Test
+    void adam() {
+        for (double decay : new double[]{0, 1e-3}) {
+            int n = OUT * IN;
+            double[] w = values(n), m = values(n), v = squares(n), g = values(n);
+            double[] w2 = w.clone(), m2 = m.clone(), v2 = v.clone(), g2 = g.clone();
+            scalar.adam(w, m, v, g, n, 0.25, 0.9, 0.999, 1e-3, 1e-8, decay);
+            vector.adam(w2, m2, v2, g2, n, 0.25, 0.9, 0.999, 1e-3, 1e-8, decay);
+            assertArrayEquals(w, w2, EPS);
+            assertArrayEquals(m, m2, EPS);
+            assertArrayEquals(v, v2, EPS);
+            assertArrayEquals(new double[n], g2, "the gradient is cleared");
+
+            float[] wf = toFloat(values(n)), mf = toFloat(values(n)), vf = toFloat(squares(n)), gf = toFloat(values(n));
+            float[] wf2 = wf.clone(), mf2 = mf.clone(), vf2 = vf.clone(), gf2 = gf.clone();
+            scalar.adam(wf, mf, vf, gf, n, 0.25f, 0.9f, 0.999f, 1e-3f, 1e-8f, (float) decay);
+            vector.adam(wf2, mf2, vf2, gf2, n, 0.25f, 0.9f, 0.999f, 1e-3f, 1e-8f, (float) decay);
+            assertArrayEquals(wf, wf2, EPS_F);
+            assertArrayEquals(mf, mf2, EPS_F);
+            assertArrayEquals(vf, vf2, EPS_F);
+            assertArrayEquals(new float[n], gf2, "the gradient is cleared");
+        }
+    }
+
+    @Test
+    void selectsVectorKernelsWithTheModule() {
+        // surefire runs with --add-modules jdk.incubator.vector, so the fallback must not be taken
+        assertEquals(VectorKernels.class, Kernels.get().getClass());
+    }
+
+    private double[] values(int n) {
+        double[] a = new double[n];
+        for (int i = 0; i < n; i++) a[i] = random.nextGaussian();
+        return a;
+    }
+
+    /** Non‑negative, like Adam's second moments */
+    private double[] squares(int n) {
+        double[] a = values(n);
+        for (int i = 0; i < n; i++) a[i] *= a[i];
+        return a;
+    }
+
+    private static float[] toFloat(double[] a) {
+        float[] f = new float[a.length];
+        for (int i = 0; i < a.length; i++) f[i] = (float) a[i];
+        return f;
+    }
+}
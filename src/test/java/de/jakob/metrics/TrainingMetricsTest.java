@@ -0,0 +1,38 @@
+package de.jakob.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/** {@link TrainingMetrics}: the allocation total keeps what threads that ended had allocated. */
+class TrainingMetricsTest {
+
+    @Test
+    void allocationTotalSurvivesEndedThreads() throws InterruptedException {
+        TrainingMetrics metrics = TrainingMetrics.get();
+        assumeTrue(metrics.allocatedBytes() >= 0, "no allocation counters in this JVM");
+        CountDownLatch allocated = new CountDownLatch(1), release = new CountDownLatch(1);
+        Thread worker = new Thread(() -> {
+            byte[][] garbage = new byte[64][];
+            for (int i = 0; i < garbage.length; i++) garbage[i] = new byte[1 << 20];
+            allocated.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        worker.start();
+        allocated.await();
+
+        long before = metrics.allocatedBytes();
+        release.countDown();
+        worker.join();
+        long after = metrics.allocatedBytes();
+
+        assertTrue(after >= before, "total fell from " + before + " to " + after);
+    }
+}